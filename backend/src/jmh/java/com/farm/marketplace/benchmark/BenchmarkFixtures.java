@@ -0,0 +1,117 @@
+package com.farm.marketplace.benchmark;
+
+import com.farm.marketplace.dto.DeliveryResponse;
+import com.farm.marketplace.dto.OrderResponse;
+import com.farm.marketplace.dto.ProductResponse;
+import com.farm.marketplace.model.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sample entities and DTOs shared by the benchmarks
+ */
+final class BenchmarkFixtures {
+
+    static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 1, 9, 30);
+
+    private BenchmarkFixtures() {
+    }
+
+    static User user(Long id, String name, Role role) {
+        User user = new User();
+        user.setId(id);
+        user.setName(name);
+        user.setEmail(name.toLowerCase().replace(' ', '.') + "@example.com");
+        user.setPassword("$2a$10$abcdefghijklmnopqrstuv");
+        user.setRole(role);
+        user.setCreatedAt(NOW);
+        user.setUpdatedAt(NOW);
+        return user;
+    }
+
+    static Product product(Long id, Long farmerId) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Organic Tomatoes " + id);
+        product.setDescription("Vine-ripened heirloom tomatoes, picked the morning of delivery");
+        product.setPrice(3.49);
+        product.setQuantity(250);
+        product.setLocation("Salem, Tamil Nadu");
+        product.setFarmerId(farmerId);
+        product.setCreatedAt(NOW);
+        product.setUpdatedAt(NOW);
+        return product;
+    }
+
+    static Order order(Long id, Long productId, Long buyerId) {
+        Order order = new Order();
+        order.setId(id);
+        order.setProductId(productId);
+        order.setBuyerId(buyerId);
+        order.setQuantity(4);
+        order.setTotalPrice(13.96);
+        order.setStatus(OrderStatus.PENDING);
+        order.setCreatedAt(NOW);
+        order.setUpdatedAt(NOW);
+        return order;
+    }
+
+    static Delivery delivery(Long id, Long orderId) {
+        Delivery delivery = new Delivery();
+        delivery.setId(id);
+        delivery.setOrderId(orderId);
+        delivery.setFarmerId(1L);
+        delivery.setFarmerName("Asha Farmer");
+        delivery.setBuyerId(2L);
+        delivery.setBuyerName("Ravi Buyer");
+        delivery.setProductName("Organic Tomatoes");
+        delivery.setDeliveryStatus(DeliveryStatus.IN_TRANSIT);
+        delivery.setEstimatedDeliveryDate(LocalDate.of(2024, 6, 4));
+        delivery.setTrackingLocation("Coimbatore hub");
+        delivery.setDeliveryNotes("Leave at the gate");
+        delivery.setCreatedAt(NOW);
+        delivery.setUpdatedAt(NOW);
+        return delivery;
+    }
+
+    static List<OrderResponse> orderResponses(int count) {
+        List<OrderResponse> responses = new ArrayList<>(count);
+        for (long i = 1; i <= count; i++) {
+            responses.add(new OrderResponse(i, 10L + i, "Organic Tomatoes", 2L, "Ravi Buyer", 1L, "Asha Farmer",
+                    4, 13.96, OrderStatus.PENDING, NOW, NOW));
+        }
+        return responses;
+    }
+
+    static List<ProductResponse> productResponses(int count) {
+        List<ProductResponse> responses = new ArrayList<>(count);
+        for (long i = 1; i <= count; i++) {
+            ProductResponse response = new ProductResponse();
+            response.setId(i);
+            response.setName("Organic Tomatoes " + i);
+            response.setDescription("Vine-ripened heirloom tomatoes, picked the morning of delivery");
+            response.setPrice(3.49);
+            response.setQuantity(250);
+            response.setLocation("Salem, Tamil Nadu");
+            response.setFarmerId(1L);
+            response.setFarmerName("Asha Farmer");
+            response.setCreatedAt(NOW);
+            response.setUpdatedAt(NOW);
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    static List<DeliveryResponse> deliveryResponses(int count) {
+        List<DeliveryResponse> responses = new ArrayList<>(count);
+        for (long i = 1; i <= count; i++) {
+            responses.add(new DeliveryResponse(i, i, 1L, "Asha Farmer", 2L, "Ravi Buyer", "Organic Tomatoes",
+                    DeliveryStatus.IN_TRANSIT, LocalDate.of(2024, 6, 4), null, "Coimbatore hub",
+                    "Leave at the gate", NOW, NOW));
+        }
+        return responses;
+    }
+}
@@ -0,0 +1,79 @@
+package com.farm.marketplace.benchmark;
+
+import com.farm.marketplace.FarmMarketplaceApplication;
+import com.farm.marketplace.model.Inventory;
+import com.farm.marketplace.model.Product;
+import com.farm.marketplace.model.Role;
+import com.farm.marketplace.model.User;
+import com.farm.marketplace.repository.InventoryRepository;
+import com.farm.marketplace.repository.ProductRepository;
+import com.farm.marketplace.repository.UserRepository;
+import com.farm.marketplace.service.InventoryService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InventoryService.decreaseInventory against the embedded database, single-threaded
+ * and with several threads fighting over the same product row
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InventoryBenchmark {
+
+    private static final int STOCK = 1_000_000_000;
+
+    @Param({"LOCKING", "ATOMIC"})
+    private String decrementMode;
+
+    private ConfigurableApplicationContext context;
+    private InventoryService inventoryService;
+    private InventoryRepository inventoryRepository;
+    private Long productId;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(FarmMarketplaceApplication.class)
+                .profiles("embedded")
+                .properties("server.port=0", "inventory.decrement-mode=" + decrementMode)
+                .run();
+        inventoryService = context.getBean(InventoryService.class);
+        inventoryRepository = context.getBean(InventoryRepository.class);
+
+        User farmer = BenchmarkFixtures.user(null, "Asha Farmer", Role.FARMER);
+        farmer = context.getBean(UserRepository.class).save(farmer);
+        Product product = BenchmarkFixtures.product(null, farmer.getId());
+        product.setQuantity(STOCK);
+        productId = context.getBean(ProductRepository.class).save(product).getId();
+        inventoryService.initializeInventory(productId, STOCK);
+    }
+
+    @Setup(Level.Iteration)
+    public void restock() {
+        Inventory inventory = inventoryRepository.findByProductId(productId).orElseThrow();
+        inventory.setAvailableQuantity(STOCK);
+        inventoryRepository.save(inventory);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public void decreaseInventory() {
+        inventoryService.decreaseInventory(productId, 1);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void decreaseInventoryContended() {
+        inventoryService.decreaseInventory(productId, 1);
+    }
+}
@@ -0,0 +1,54 @@
+package com.farm.marketplace.benchmark;
+
+import com.farm.marketplace.dto.DeliveryResponse;
+import com.farm.marketplace.dto.OrderResponse;
+import com.farm.marketplace.dto.ProductResponse;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the response DTOs, configured like the web layer's ObjectMapper
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    @Param({"1", "100"})
+    private int rows;
+
+    private ObjectWriter writer;
+    private List<OrderResponse> orders;
+    private List<ProductResponse> products;
+    private List<DeliveryResponse> deliveries;
+
+    @Setup
+    public void setUp() {
+        writer = Jackson2ObjectMapperBuilder.json().build().writer();
+        orders = BenchmarkFixtures.orderResponses(rows);
+        products = BenchmarkFixtures.productResponses(rows);
+        deliveries = BenchmarkFixtures.deliveryResponses(rows);
+    }
+
+    @Benchmark
+    public byte[] orders() throws Exception {
+        return writer.writeValueAsBytes(orders);
+    }
+
+    @Benchmark
+    public byte[] products() throws Exception {
+        return writer.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public byte[] deliveries() throws Exception {
+        return writer.writeValueAsBytes(deliveries);
+    }
+}
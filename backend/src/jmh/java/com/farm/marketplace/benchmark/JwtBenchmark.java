@@ -0,0 +1,62 @@
+package com.farm.marketplace.benchmark;
+
+import com.farm.marketplace.model.Role;
+import com.farm.marketplace.model.User;
+import com.farm.marketplace.security.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token generation and verification, with and without the verified-token cache
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    private static final String SECRET = "farmMarketplaceSecretKeyForJWTTokenGenerationAndValidation2024";
+
+    private JwtUtil cachingJwtUtil;
+    private JwtUtil uncachedJwtUtil;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cachingJwtUtil = jwtUtil(10_000);
+        uncachedJwtUtil = jwtUtil(0);
+        user = BenchmarkFixtures.user(42L, "Ravi Buyer", Role.BUYER);
+        token = cachingJwtUtil.generateToken(user);
+        cachingJwtUtil.parseVerifiedClaims(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return cachingJwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public Claims validateCached() {
+        return cachingJwtUtil.parseVerifiedClaims(token);
+    }
+
+    @Benchmark
+    public Claims validateUncached() {
+        return uncachedJwtUtil.parseVerifiedClaims(token);
+    }
+
+    private static JwtUtil jwtUtil(int cacheEntries) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86_400_000L);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheMaxEntries", cacheEntries);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        return jwtUtil;
+    }
+}
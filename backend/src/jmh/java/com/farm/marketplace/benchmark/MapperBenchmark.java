@@ -0,0 +1,111 @@
+package com.farm.marketplace.benchmark;
+
+import com.farm.marketplace.model.*;
+import com.farm.marketplace.repository.ProductRepository;
+import com.farm.marketplace.repository.UserRepository;
+import com.farm.marketplace.service.DeliveryService;
+import com.farm.marketplace.service.OrderService;
+import com.farm.marketplace.service.ProductService;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * The private entity-to-DTO mappers, with repositories stubbed so only mapping cost
+ * (and the lookups the mapper issues) is measured
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    private OrderService orderService;
+    private ProductService productService;
+    private DeliveryService deliveryService;
+
+    private Method orderMapper;
+    private Method productMapper;
+    private Method productPageMapper;
+    private Method deliveryMapper;
+
+    private Order order;
+    private Product product;
+    private List<Product> productPage;
+    private Delivery delivery;
+
+    @Setup
+    public void setUp() throws Exception {
+        User farmer = BenchmarkFixtures.user(1L, "Asha Farmer", Role.FARMER);
+        User buyer = BenchmarkFixtures.user(2L, "Ravi Buyer", Role.BUYER);
+        product = BenchmarkFixtures.product(10L, farmer.getId());
+        order = BenchmarkFixtures.order(100L, product.getId(), buyer.getId());
+        delivery = BenchmarkFixtures.delivery(1000L, order.getId());
+        productPage = new ArrayList<>();
+        for (long i = 0; i < PAGE_SIZE; i++) {
+            productPage.add(BenchmarkFixtures.product(10L + i, farmer.getId()));
+        }
+
+        ProductRepository productRepository = Mockito.mock(ProductRepository.class);
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        when(productRepository.findById(anyLong())).thenReturn(Optional.of(product));
+        when(userRepository.findById(farmer.getId())).thenReturn(Optional.of(farmer));
+        when(userRepository.findById(buyer.getId())).thenReturn(Optional.of(buyer));
+        when(userRepository.findAllById(any())).thenReturn(List.of(farmer));
+
+        orderService = new OrderService();
+        ReflectionTestUtils.setField(orderService, "productRepository", productRepository);
+        ReflectionTestUtils.setField(orderService, "userRepository", userRepository);
+
+        productService = new ProductService();
+        ReflectionTestUtils.setField(productService, "productRepository", productRepository);
+        ReflectionTestUtils.setField(productService, "userRepository", userRepository);
+
+        deliveryService = new DeliveryService();
+
+        orderMapper = privateMethod(OrderService.class, "mapToResponse", Order.class);
+        productMapper = privateMethod(ProductService.class, "mapToResponseWithFarmer", Product.class);
+        productPageMapper = privateMethod(ProductService.class, "mapToResponses", List.class);
+        deliveryMapper = privateMethod(DeliveryService.class, "mapToResponse", Delivery.class);
+    }
+
+    @Benchmark
+    public Object orderMapToResponse() throws Exception {
+        return orderMapper.invoke(orderService, order);
+    }
+
+    @Benchmark
+    public Object productMapToResponseWithFarmer() throws Exception {
+        return productMapper.invoke(productService, product);
+    }
+
+    @Benchmark
+    public Object productMapPage() throws Exception {
+        return productPageMapper.invoke(productService, productPage);
+    }
+
+    @Benchmark
+    public Object deliveryMapToResponse() throws Exception {
+        return deliveryMapper.invoke(deliveryService, delivery);
+    }
+
+    private static Method privateMethod(Class<?> type, String name, Class<?>... parameterTypes) throws Exception {
+        Method method = type.getDeclaredMethod(name, parameterTypes);
+        method.setAccessible(true);
+        return method;
+    }
+}
@@ -0,0 +1,72 @@
+package com.farm.marketplace.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AIMD concurrency limit for one endpoint group. Requests beyond the current limit are
+ * refused rather than queued. Each completed request adjusts the limit: a slow or failed
+ * one multiplies it by the backoff ratio, a fast one while the group is busy (at least half
+ * the limit in flight) raises it by one. So the limit settles just under the concurrency at
+ * which the database starts to slow down, and recovers once it speeds up again.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final String name;
+    private final ConcurrencyLimitProperties.Group settings;
+    private final long latencyThresholdNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    public AdaptiveConcurrencyLimiter(String name, ConcurrencyLimitProperties.Group settings) {
+        this.name = name;
+        this.settings = settings;
+        this.latencyThresholdNanos = settings.getLatencyThreshold().toNanos();
+        this.limit = Math.max(settings.getMinLimit(), Math.min(settings.getInitialLimit(), settings.getMaxLimit()));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getRetryAfterSeconds() {
+        return settings.getRetryAfterSeconds();
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Take a slot if the group is under its limit
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Give the slot back and adapt the limit to how the request went
+     */
+    public void release(long latencyNanos, boolean failed) {
+        int busy = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (failed || latencyNanos > latencyThresholdNanos) {
+                limit = Math.max(settings.getMinLimit(), limit * settings.getBackoffRatio());
+            } else if (busy * 2 >= limit) {
+                limit = Math.min(settings.getMaxLimit(), limit + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.farm.marketplace.config;
+
+import com.farm.marketplace.service.MarketplaceMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.CorsConfigurationSource;
+import org.springframework.web.cors.CorsProcessor;
+import org.springframework.web.cors.DefaultCorsProcessor;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Puts an adaptive concurrency limit in front of each endpoint group (orders, catalog,
+ * delivery). When a group is at its limit the request is answered at once with
+ * 503 + Retry-After instead of taking a server thread and queuing on a database lock.
+ * Runs ahead of Spring Security so shed requests cost no token parsing either, which also
+ * means it adds the CORS headers to its own 503s. Streamed responses (exports) hold their
+ * slot until the async response completes.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private ConcurrencyLimitProperties properties;
+
+    @Autowired
+    private MarketplaceMetrics metrics;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CorsConfigurationSource corsConfigurationSource;
+
+    private final CorsProcessor corsProcessor = new DefaultCorsProcessor();
+
+    private final List<Route> routes = new ArrayList<>();
+
+    private record Route(String pathPrefix, AdaptiveConcurrencyLimiter limiter) {
+    }
+
+    @PostConstruct
+    void init() {
+        properties.getGroups().forEach((name, settings) -> {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(name, settings);
+            metrics.registerConcurrencyLimiter(limiter);
+            for (String prefix : settings.getPathPrefixes()) {
+                routes.add(new Route(prefix, limiter));
+            }
+        });
+        // Longest prefix first, so a more specific group wins
+        routes.sort((a, b) -> Integer.compare(b.pathPrefix().length(), a.pathPrefix().length()));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        AdaptiveConcurrencyLimiter limiter = limiterFor(request.getRequestURI());
+        if (limiter == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (!limiter.tryAcquire()) {
+            metrics.recordRequestShed(limiter.getName());
+            // Without CORS headers a browser hides the 503 and its Retry-After from the frontend
+            CorsConfiguration corsConfiguration = corsConfigurationSource.getCorsConfiguration(request);
+            if (corsConfiguration != null && !corsProcessor.processRequest(corsConfiguration, request, response)) {
+                return;   // Origin not allowed: the processor has already answered 403
+            }
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(limiter.getRetryAfterSeconds()));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), Map.of("error", "Server busy, please retry shortly"));
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = response.getStatus() >= 500;
+        } finally {
+            if (request.isAsyncStarted()) {
+                releaseOnAsyncCompletion(request, response, limiter, start);
+            } else {
+                limiter.release(System.nanoTime() - start, failed);
+            }
+        }
+    }
+
+    /**
+     * Keep the slot of a streamed response until it completes, errors or times out
+     */
+    private void releaseOnAsyncCompletion(HttpServletRequest request, HttpServletResponse response,
+                                          AdaptiveConcurrencyLimiter limiter, long start) {
+        request.getAsyncContext().addListener(new AsyncListener() {
+            private boolean released;
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+                release(response.getStatus() >= 500);
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                release(true);
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                release(true);
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+                // Re-dispatched async processing keeps listening with this listener
+                event.getAsyncContext().addListener(this);
+            }
+
+            private synchronized void release(boolean failed) {
+                if (!released) {
+                    released = true;
+                    limiter.release(System.nanoTime() - start, failed);
+                }
+            }
+        });
+    }
+
+    private AdaptiveConcurrencyLimiter limiterFor(String path) {
+        for (Route route : routes) {
+            if (path.startsWith(route.pathPrefix())) {
+                return route.limiter();
+            }
+        }
+        return null;
+    }
+}
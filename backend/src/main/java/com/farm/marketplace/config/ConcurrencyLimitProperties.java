@@ -0,0 +1,45 @@
+package com.farm.marketplace.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settings for the adaptive concurrency limiter, one entry per endpoint group
+ * (concurrency-limit.groups.&lt;name&gt;.*)
+ */
+@Component
+@ConfigurationProperties(prefix = "concurrency-limit")
+@Data
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled = true;
+
+    private Map<String, Group> groups = new LinkedHashMap<>();
+
+    @Data
+    public static class Group {
+
+        // Request paths starting with any of these belong to the group
+        private List<String> pathPrefixes = new ArrayList<>();
+
+        private int initialLimit = 20;
+        private int minLimit = 2;
+        private int maxLimit = 200;
+
+        // A request slower than this (or failing with a 5xx) counts as a sign of overload
+        private Duration latencyThreshold = Duration.ofMillis(500);
+
+        // Multiplicative decrease applied to the limit on overload
+        private double backoffRatio = 0.9;
+
+        // Retry-After sent with 503 responses
+        private int retryAfterSeconds = 1;
+    }
+}
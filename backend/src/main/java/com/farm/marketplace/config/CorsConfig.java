@@ -49,7 +49,8 @@ public class CorsConfig {
         // Expose headers that the frontend can read
         configuration.setExposedHeaders(Arrays.asList(
             "Authorization",
-            "Content-Type"
+            "Content-Type",
+            "Retry-After"
         ));
         
         // Cache preflight response for 1 hour (3600 seconds)
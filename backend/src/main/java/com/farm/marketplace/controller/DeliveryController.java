@@ -4,19 +4,22 @@ import com.farm.marketplace.dto.DeliveryCreateRequest;
 import com.farm.marketplace.dto.DeliveryResponse;
 import com.farm.marketplace.dto.DeliveryStatusUpdateRequest;
 import com.farm.marketplace.exception.ResourceNotFoundException;
-import com.farm.marketplace.model.Product;
-import com.farm.marketplace.model.User;
 import com.farm.marketplace.repository.OrderRepository;
 import com.farm.marketplace.repository.ProductRepository;
-import com.farm.marketplace.repository.UserRepository;
+import com.farm.marketplace.security.AuthenticatedUser;
 import com.farm.marketplace.service.DeliveryService;
+import com.farm.marketplace.service.ExportFormat;
+import com.farm.marketplace.service.ExportService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
 import java.util.List;
@@ -29,15 +32,29 @@ public class DeliveryController {
     @Autowired
     private DeliveryService deliveryService;
     
-    @Autowired
-    private UserRepository userRepository;
-    
     @Autowired
     private OrderRepository orderRepository;
     
     @Autowired
     private ProductRepository productRepository;
     
+    @Autowired
+    private ExportService exportService;
+    
+    /**
+     * Stream all deliveries as CSV or NDJSON (Admin only)
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportDeliveries(@RequestParam(defaultValue = "csv") String format) {
+        ExportFormat exportFormat = ExportFormat.fromName(format);
+        StreamingResponseBody body = exportService.exportDeliveries(exportFormat);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"deliveries." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+    
     /**
      * Create delivery entry for an order (Farmer/Admin only)
      */
@@ -46,12 +63,8 @@ public class DeliveryController {
     public ResponseEntity<?> createDelivery(
             @PathVariable Long orderId,
             @RequestBody(required = false) DeliveryCreateRequest request,
-            Authentication authentication) {
+            @AuthenticationPrincipal AuthenticatedUser user) {
         try {
-            String email = authentication.getName();
-            User user = userRepository.findByEmail(email)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             // Farmers can only create delivery for their own products
             if (user.getRole().name().equals("FARMER")) {
                 var order = orderRepository.findById(orderId)
@@ -103,12 +116,8 @@ public class DeliveryController {
     public ResponseEntity<?> updateDeliveryStatus(
             @PathVariable Long orderId,
             @Valid @RequestBody DeliveryStatusUpdateRequest request,
-            Authentication authentication) {
+            @AuthenticationPrincipal AuthenticatedUser user) {
         try {
-            String email = authentication.getName();
-            User user = userRepository.findByEmail(email)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             // Farmers can only update delivery for their own products
             if (user.getRole().name().equals("FARMER")) {
                 var order = orderRepository.findById(orderId)
@@ -143,12 +152,8 @@ public class DeliveryController {
     @GetMapping("/tracking/{buyerId}")
     public ResponseEntity<?> getDeliveriesForBuyer(
             @PathVariable Long buyerId,
-            Authentication authentication) {
+            @AuthenticationPrincipal AuthenticatedUser user) {
         try {
-            String email = authentication.getName();
-            User user = userRepository.findByEmail(email)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             // Buyers can only view their own deliveries, admins can view any
             if (user.getRole().name().equals("BUYER") && !user.getId().equals(buyerId)) {
                 Map<String, String> error = new HashMap<>();
@@ -173,12 +178,8 @@ public class DeliveryController {
     @PreAuthorize("hasAnyRole('FARMER', 'ADMIN')")
     public ResponseEntity<?> getDeliveriesForFarmer(
             @PathVariable Long farmerId,
-            Authentication authentication) {
+            @AuthenticationPrincipal AuthenticatedUser user) {
         try {
-            String email = authentication.getName();
-            User user = userRepository.findByEmail(email)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             // Farmers can only view their own deliveries, admins can view any
             if (user.getRole().name().equals("FARMER") && !user.getId().equals(farmerId)) {
                 Map<String, String> error = new HashMap<>();
@@ -1,18 +1,21 @@
 package com.farm.marketplace.controller;
 
+import com.farm.marketplace.dto.InventoryLedgerResponse;
 import com.farm.marketplace.dto.InventoryResponse;
 import com.farm.marketplace.dto.InventoryUpdateRequest;
 import com.farm.marketplace.model.Product;
-import com.farm.marketplace.model.User;
 import com.farm.marketplace.repository.ProductRepository;
-import com.farm.marketplace.repository.UserRepository;
+import com.farm.marketplace.security.AuthenticatedUser;
+import com.farm.marketplace.service.FlashSaleService;
+import com.farm.marketplace.service.InventoryLedgerService;
 import com.farm.marketplace.service.InventoryService;
+import com.farm.marketplace.service.ShardedInventoryService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -23,25 +26,29 @@ import java.util.Map;
 @RequestMapping("/api/inventory")
 public class InventoryController {
     
+    private static final int MAX_HISTORY_LIMIT = 1000;
+    
     @Autowired
     private InventoryService inventoryService;
     
     @Autowired
-    private UserRepository userRepository;
+    private ProductRepository productRepository;
     
     @Autowired
-    private ProductRepository productRepository;
+    private FlashSaleService flashSaleService;
+    
+    @Autowired
+    private ShardedInventoryService shardedInventoryService;
+    
+    @Autowired
+    private InventoryLedgerService ledgerService;
     
     /**
      * Get all inventory items (Farmer sees their own, Admin sees all)
      */
     @GetMapping
     @PreAuthorize("hasAnyRole('FARMER', 'ADMIN')")
-    public ResponseEntity<List<InventoryResponse>> getAllInventory(Authentication authentication) {
-        String email = authentication.getName();
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
+    public ResponseEntity<List<InventoryResponse>> getAllInventory(@AuthenticationPrincipal AuthenticatedUser user) {
         List<InventoryResponse> inventory;
         if (user.getRole().name().equals("ADMIN")) {
             inventory = inventoryService.getAllInventory();
@@ -77,12 +84,8 @@ public class InventoryController {
     public ResponseEntity<?> updateInventory(
             @PathVariable Long productId,
             @Valid @RequestBody InventoryUpdateRequest request,
-            Authentication authentication) {
+            @AuthenticationPrincipal AuthenticatedUser user) {
         try {
-            String email = authentication.getName();
-            User user = userRepository.findByEmail(email)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             // Check if product exists
             Product product = productRepository.findById(productId)
                     .orElseThrow(() -> new RuntimeException("Product not found"));
@@ -104,6 +107,34 @@ public class InventoryController {
         }
     }
     
+    /**
+     * Stock change history for a product, newest first (Farmer/Admin only)
+     * Farmers can only view their own products
+     */
+    @GetMapping("/{productId}/history")
+    @PreAuthorize("hasAnyRole('FARMER', 'ADMIN')")
+    public ResponseEntity<?> getInventoryHistory(
+            @PathVariable Long productId,
+            @RequestParam(defaultValue = "100") Integer limit,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        Product product = productRepository.findById(productId).orElse(null);
+        if (product == null) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Product not found");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        }
+        
+        if (user.getRole().name().equals("FARMER") && !product.getFarmerId().equals(user.getId())) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "You can only view inventory history for your own products");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+        }
+        
+        List<InventoryLedgerResponse> history =
+                ledgerService.getHistory(productId, Math.max(1, Math.min(limit, MAX_HISTORY_LIMIT)));
+        return ResponseEntity.ok(history);
+    }
+    
     /**
      * Check stock availability for a product
      */
@@ -142,4 +173,62 @@ public class InventoryController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
         }
     }
+    
+    /**
+     * Turn flash-sale ordering on or off for a hot product (Admin only)
+     */
+    @PutMapping("/flash-sale/{productId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> setFlashSale(
+            @PathVariable Long productId,
+            @RequestParam boolean enabled) {
+        if (!productRepository.existsById(productId)) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Product not found");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        }
+        
+        flashSaleService.setHot(productId, enabled);
+        Map<String, Object> response = new HashMap<>();
+        response.put("productId", productId);
+        response.put("flashSale", enabled);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Split a product's stock across several counter rows (Admin only)
+     */
+    @PostMapping("/{productId}/shards")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> shardInventory(
+            @PathVariable Long productId,
+            @RequestParam Integer count) {
+        try {
+            shardedInventoryService.shard(productId, count);
+            Map<String, Object> response = new HashMap<>();
+            response.put("productId", productId);
+            response.put("shards", count);
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+    
+    /**
+     * Fold a product's stock back into a single row (Admin only)
+     */
+    @DeleteMapping("/{productId}/shards")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> unshardInventory(@PathVariable Long productId) {
+        try {
+            shardedInventoryService.unshard(productId);
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
 }
@@ -1,14 +1,21 @@
 package com.farm.marketplace.controller;
 
+import com.farm.marketplace.dto.CheckoutRequest;
 import com.farm.marketplace.dto.OrderRequest;
 import com.farm.marketplace.dto.OrderResponse;
 import com.farm.marketplace.dto.OrderStatusUpdateRequest;
+import com.farm.marketplace.service.ExportFormat;
+import com.farm.marketplace.service.ExportService;
 import com.farm.marketplace.service.OrderService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -19,18 +26,41 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private ExportService exportService;
+
     @PostMapping
     public ResponseEntity<OrderResponse> createOrder(@Valid @RequestBody OrderRequest request) {
         OrderResponse response = orderService.createOrder(request);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @PostMapping("/checkout")
+    public ResponseEntity<List<OrderResponse>> checkout(@Valid @RequestBody CheckoutRequest request) {
+        List<OrderResponse> response = orderService.checkout(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
     @GetMapping
     public ResponseEntity<List<OrderResponse>> getAllOrders() {
         List<OrderResponse> orders = orderService.getAllOrders();
         return ResponseEntity.ok(orders);
     }
 
+    /**
+     * Stream all orders as CSV or NDJSON (Admin only)
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportOrders(@RequestParam(defaultValue = "csv") String format) {
+        ExportFormat exportFormat = ExportFormat.fromName(format);
+        StreamingResponseBody body = exportService.exportOrders(exportFormat);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
     @GetMapping("/buyer/{buyerId}")
     public ResponseEntity<List<OrderResponse>> getOrdersByBuyerId(@PathVariable Long buyerId) {
         List<OrderResponse> orders = orderService.getOrdersByBuyerId(buyerId);
@@ -1,39 +1,131 @@
 package com.farm.marketplace.controller;
 
+import com.farm.marketplace.dto.NearbyProductResponse;
+import com.farm.marketplace.dto.ProductImportResponse;
+import com.farm.marketplace.dto.ProductPageResponse;
 import com.farm.marketplace.dto.ProductRequest;
 import com.farm.marketplace.dto.ProductResponse;
+import com.farm.marketplace.dto.ProductSearchResponse;
+import com.farm.marketplace.service.CatalogSnapshot;
+import com.farm.marketplace.service.ProductImportFormat;
+import com.farm.marketplace.service.ProductImportService;
 import com.farm.marketplace.service.ProductService;
+import com.farm.marketplace.service.ResourceVersion;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
 
+    // Clients may keep the response but must revalidate it (overrides Spring Security's no-store)
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private CatalogSnapshot catalogSnapshot;
+
     @PostMapping
     public ResponseEntity<ProductResponse> createProduct(@Valid @RequestBody ProductRequest request) {
         ProductResponse response = productService.createProduct(request);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    /**
+     * Bulk import products from a CSV or NDJSON body, streamed row by row
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson", "application/ndjson"})
+    public ResponseEntity<ProductImportResponse> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        ProductImportResponse response =
+                productImportService.importProducts(body, ProductImportFormat.fromContentType(contentType));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Serves the pre-encoded catalog snapshot as bytes (gzipped when the client accepts it);
+     * until the first snapshot is built, falls back to querying. Either way If-None-Match /
+     * If-Modified-Since get a 304 before any product is loaded.
+     */
     @GetMapping
-    public ResponseEntity<List<ProductResponse>> getAllProducts() {
-        List<ProductResponse> products = productService.getAllProducts();
+    public ResponseEntity<?> getAllProducts(WebRequest webRequest) {
+        CatalogSnapshot.Snapshot snapshot = catalogSnapshot.current();
+        if (snapshot == null) {
+            ResourceVersion version = productService.getCatalogVersion();
+            if (webRequest.checkNotModified(version.eTag(), version.lastModified())) {
+                return null;   // 304 with ETag and Last-Modified already set
+            }
+            List<ProductResponse> products = productService.getAllProducts();
+            return ResponseEntity.ok().cacheControl(REVALIDATE).body(products);
+        }
+
+        // Each encoding is its own representation, so each gets its own strong ETag
+        boolean gzip = acceptsGzip(webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (webRequest.checkNotModified(gzip ? snapshot.gzipETag() : snapshot.eTag(), snapshot.lastModified())) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(REVALIDATE)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(gzip ? snapshot.gzipped() : snapshot.json());
+    }
+
+    @GetMapping("/catalog")
+    public ResponseEntity<ProductPageResponse> getCatalogPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        ProductPageResponse page = productService.getCatalogPage(cursor, size);
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<ProductSearchResponse> searchProducts(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        ProductSearchResponse results = productService.searchProducts(q, page, size);
+        return ResponseEntity.ok(results);
+    }
+
+    @GetMapping("/nearby")
+    public ResponseEntity<List<NearbyProductResponse>> getNearbyProducts(
+            @RequestParam Double lat,
+            @RequestParam Double lon,
+            @RequestParam(required = false) Double radiusKm,
+            @RequestParam(required = false) Integer limit) {
+        List<NearbyProductResponse> products = productService.findNearbyProducts(lat, lon, radiusKm, limit);
         return ResponseEntity.ok(products);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ProductResponse> getProductById(@PathVariable Long id) {
+    public ResponseEntity<ProductResponse> getProductById(@PathVariable Long id, WebRequest webRequest) {
+        ResourceVersion version = productService.getProductVersion(id);
+        if (webRequest.checkNotModified(version.eTag(), version.lastModified())) {
+            return null;
+        }
         ProductResponse product = productService.getProductById(id);
-        return ResponseEntity.ok(product);
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(product);
     }
 
     @PutMapping("/{id}")
@@ -49,4 +141,31 @@ public class ProductController {
         productService.deleteProduct(id);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Whether an Accept-Encoding header allows gzip (listed, or "*", without q=0)
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim();
+            if (!coding.equalsIgnoreCase("gzip") && !coding.equals("*")) {
+                continue;
+            }
+            boolean refused = false;
+            for (int i = 1; i < tokens.length; i++) {
+                String parameter = tokens[i].trim().replace(" ", "");
+                if (parameter.matches("(?i)q=0(\\.0{0,3})?")) {
+                    refused = true;
+                }
+            }
+            if (!refused) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
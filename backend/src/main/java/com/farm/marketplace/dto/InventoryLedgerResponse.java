@@ -0,0 +1,22 @@
+package com.farm.marketplace.dto;
+
+import com.farm.marketplace.model.InventoryChangeReason;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryLedgerResponse {
+    private Long id;
+    private Long productId;
+    private Integer delta;
+    private InventoryChangeReason reason;
+    private Long actorId;
+    private Long orderId;
+    private String note;
+    private LocalDateTime createdAt;
+}
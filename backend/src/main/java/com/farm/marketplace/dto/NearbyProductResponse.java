@@ -0,0 +1,13 @@
+package com.farm.marketplace.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyProductResponse {
+    private ProductResponse product;
+    private double distanceKm;   // Great-circle distance from the query point
+}
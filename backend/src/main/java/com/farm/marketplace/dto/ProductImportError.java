@@ -0,0 +1,13 @@
+package com.farm.marketplace.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportError {
+    private Long row;          // Line number in the uploaded file (1-based)
+    private String message;
+}
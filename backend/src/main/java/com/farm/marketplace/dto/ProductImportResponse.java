@@ -0,0 +1,17 @@
+package com.farm.marketplace.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportResponse {
+    private long imported;
+    private long failed;
+    private List<ProductImportError> errors;
+    private boolean errorsTruncated;   // True when more rows failed than are listed in errors
+}
@@ -0,0 +1,16 @@
+package com.farm.marketplace.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPageResponse {
+    private List<ProductResponse> items;
+    private String nextCursor; // Null when there are no more pages
+    private boolean hasMore;
+}
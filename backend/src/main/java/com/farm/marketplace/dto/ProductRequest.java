@@ -1,5 +1,8 @@
 package com.farm.marketplace.dto;
 
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -27,4 +30,18 @@ public class ProductRequest {
     
     @NotBlank(message = "Location is required")
     private String location;
+    
+    // Optional; give both or neither
+    @DecimalMin(value = "-90.0", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Latitude must be between -90 and 90")
+    private Double latitude;
+    
+    @DecimalMin(value = "-180.0", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Longitude must be between -180 and 180")
+    private Double longitude;
+    
+    @AssertTrue(message = "Latitude and longitude must be given together")
+    private boolean isCoordinatesComplete() {
+        return (latitude == null) == (longitude == null);
+    }
 }
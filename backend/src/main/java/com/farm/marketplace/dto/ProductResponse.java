@@ -16,6 +16,8 @@ public class ProductResponse {
     private Double price;
     private Integer quantity;
     private String location;
+    private Double latitude;
+    private Double longitude;
     private Long farmerId;
     private String farmerName;
     private LocalDateTime createdAt;
@@ -0,0 +1,17 @@
+package com.farm.marketplace.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchResponse {
+    private List<ProductResponse> items;
+    private int total;   // Matching products across all pages
+    private int page;
+    private int size;
+}
@@ -0,0 +1,18 @@
+package com.farm.marketplace.model;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Entity id taken from an in-process block of ids reserved for the entity's table
+ * (see IdBlockAllocator). Ids are known before the INSERT, so Hibernate can batch inserts.
+ */
+@IdGeneratorType(BlockIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface BlockId {
+}
@@ -0,0 +1,25 @@
+package com.farm.marketplace.model;
+
+import com.farm.marketplace.repository.IdBlockAllocator;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+
+import java.lang.reflect.Member;
+
+/**
+ * Hibernate generator behind @BlockId: hands out the next id for the entity's table
+ */
+public class BlockIdGenerator implements IdentifierGenerator {
+
+    private final String table;
+
+    public BlockIdGenerator(BlockId config, Member member, CustomIdGeneratorCreationContext context) {
+        this.table = context.getPersistentClass().getTable().getName();
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return IdBlockAllocator.get().nextId(table);
+    }
+}
@@ -19,7 +19,7 @@ import java.time.LocalDateTime;
 public class Delivery {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @BlockId
     private Long id;
     
     @NotNull(message = "Order ID is required")
@@ -34,6 +34,16 @@ public class Delivery {
     @Column(name = "buyer_id", nullable = false)
     private Long buyerId;
     
+    // Names are snapshotted at creation so reads need no extra lookups
+    @Column(name = "farmer_name")
+    private String farmerName;
+    
+    @Column(name = "buyer_name")
+    private String buyerName;
+    
+    @Column(name = "product_name")
+    private String productName;
+    
     @Enumerated(EnumType.STRING)
     @Column(name = "delivery_status", nullable = false)
     private DeliveryStatus deliveryStatus = DeliveryStatus.PENDING;
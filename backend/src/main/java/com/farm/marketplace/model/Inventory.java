@@ -19,7 +19,7 @@ import java.time.LocalDateTime;
 public class Inventory {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @BlockId
     private Long id;
     
     @NotNull(message = "Product ID is required")
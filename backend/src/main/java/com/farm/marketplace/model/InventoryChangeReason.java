@@ -0,0 +1,10 @@
+package com.farm.marketplace.model;
+
+public enum InventoryChangeReason {
+    INITIAL_STOCK,
+    ORDER_PLACED,
+    ORDER_CANCELLED,
+    FLASH_SALE_BATCH,
+    MANUAL_UPDATE,
+    SYNC
+}
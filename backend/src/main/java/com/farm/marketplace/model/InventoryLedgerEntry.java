@@ -0,0 +1,47 @@
+package com.farm.marketplace.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One append-only stock change. Rows are written in JDBC batches by InventoryLedgerService.
+ */
+@Entity
+@Table(name = "inventory_ledger", indexes = {
+        @Index(name = "idx_inventory_ledger_product_created", columnList = "product_id, created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryLedgerEntry {
+    
+    @Id
+    @BlockId
+    private Long id;
+    
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    @Column(nullable = false)
+    private Integer delta;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private InventoryChangeReason reason;
+    
+    @Column(name = "actor_id")
+    private Long actorId;
+    
+    @Column(name = "order_id")
+    private Long orderId;
+    
+    @Column(length = 255)
+    private String note;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,45 @@
+package com.farm.marketplace.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * One slice of a product's available stock when its inventory is sharded across several rows
+ */
+@Entity
+@Table(name = "inventory_shards", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_inventory_shards_product_shard", columnNames = {"product_id", "shard_index"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryShard {
+    
+    @Id
+    @BlockId
+    private Long id;
+    
+    @NotNull(message = "Product ID is required")
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    @NotNull(message = "Shard index is required")
+    @Column(name = "shard_index", nullable = false)
+    private Integer shardIndex;
+    
+    @NotNull(message = "Available quantity is required")
+    @Min(value = 0, message = "Available quantity cannot be negative")
+    @Column(name = "available_quantity", nullable = false)
+    private Integer availableQuantity;
+    
+    @UpdateTimestamp
+    @Column(name = "last_updated")
+    private LocalDateTime lastUpdated;
+}
@@ -0,0 +1,7 @@
+package com.farm.marketplace.model;
+
+public enum OutboxEventStatus {
+    PENDING,
+    PROCESSED,
+    FAILED
+}
@@ -0,0 +1,5 @@
+package com.farm.marketplace.model;
+
+public enum OutboxEventType {
+    ORDER_SHIPPED
+}
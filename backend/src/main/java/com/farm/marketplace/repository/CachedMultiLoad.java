@@ -0,0 +1,37 @@
+package com.farm.marketplace.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Spring Data's default findAllById runs a JPQL "id IN (...)" query, which always goes to
+ * the database. Hibernate's multi-load checks the persistence context and the second-level
+ * cache first and only selects the ids it could not find there.
+ */
+final class CachedMultiLoad {
+
+    private CachedMultiLoad() {
+    }
+
+    static <T> List<T> load(EntityManager entityManager, Class<T> entityClass, Iterable<Long> ids) {
+        Set<Long> distinctIds = new LinkedHashSet<>();
+        ids.forEach(distinctIds::add);
+        if (distinctIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return entityManager.unwrap(Session.class)
+                .byMultipleIds(entityClass)
+                .enableSessionCheck(true)
+                .multiLoad(new ArrayList<>(distinctIds))
+                .stream()
+                .filter(Objects::nonNull)   // Missing ids come back as nulls
+                .collect(Collectors.toList());
+    }
+}
@@ -3,6 +3,9 @@ package com.farm.marketplace.repository;
 import com.farm.marketplace.model.Delivery;
 import com.farm.marketplace.model.DeliveryStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,6 +14,16 @@ import java.util.Optional;
 @Repository
 public interface DeliveryRepository extends JpaRepository<Delivery, Long> {
     
+    /**
+     * Projects deliveries straight into DeliveryResponse (names are snapshotted on the row)
+     */
+    String DELIVERY_RESPONSE_SELECT =
+            "SELECT new com.farm.marketplace.dto.DeliveryResponse(" +
+            "d.id, d.orderId, d.farmerId, d.farmerName, d.buyerId, d.buyerName, d.productName, " +
+            "d.deliveryStatus, d.estimatedDeliveryDate, d.actualDeliveryDate, d.trackingLocation, " +
+            "d.deliveryNotes, d.createdAt, d.updatedAt) " +
+            "FROM Delivery d ";
+    
     /**
      * Find delivery by order ID
      */
@@ -40,4 +53,39 @@ public interface DeliveryRepository extends JpaRepository<Delivery, Long> {
      * Find deliveries by buyer and status
      */
     List<Delivery> findByBuyerIdAndDeliveryStatus(Long buyerId, DeliveryStatus status);
+    
+    /**
+     * Backfill farmer name snapshots on rows created before they were stored
+     */
+    @Modifying
+    @Query("UPDATE Delivery d SET d.farmerName = " +
+           "(SELECT u.name FROM User u WHERE u.id = d.farmerId) " +
+           "WHERE d.farmerName IS NULL")
+    int backfillFarmerNames();
+    
+    /**
+     * Backfill buyer name snapshots on rows created before they were stored
+     */
+    @Modifying
+    @Query("UPDATE Delivery d SET d.buyerName = " +
+           "(SELECT u.name FROM User u WHERE u.id = d.buyerId) " +
+           "WHERE d.buyerName IS NULL")
+    int backfillBuyerNames();
+    
+    /**
+     * Backfill product name snapshots on rows created before they were stored
+     */
+    @Modifying
+    @Query("UPDATE Delivery d SET d.productName = " +
+           "(SELECT p.name FROM Order o JOIN Product p ON p.id = o.productId WHERE o.id = d.orderId) " +
+           "WHERE d.productName IS NULL")
+    int backfillProductNames();
+    
+    /**
+     * Refresh the product name snapshot on every delivery of a product
+     */
+    @Modifying
+    @Query("UPDATE Delivery d SET d.productName = :productName " +
+           "WHERE d.orderId IN (SELECT o.id FROM Order o WHERE o.productId = :productId)")
+    int updateProductName(@Param("productId") Long productId, @Param("productName") String productName);
 }
@@ -0,0 +1,187 @@
+package com.farm.marketplace.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out entity ids from blocks reserved per table in id_generators. A block is reserved in
+ * its own short transaction on a dedicated connection opened outside the Hikari pool, so a
+ * request that already holds a pooled connection never waits for a second one. Each block
+ * starts past the table's current MAX(id), so rows inserted before (or by other means) never
+ * collide; ids are unique across instances but only roughly ordered by insert time.
+ */
+@Component
+public class IdBlockAllocator {
+
+    private static volatile IdBlockAllocator instance;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Value("${ids.block-size:100}")
+    private int blockSize;
+
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    private SimpleDriverDataSource dataSource;
+
+    // Guarded by this; reopened after a failed reservation
+    private Connection connection;
+
+    private boolean tableCreated;
+
+    /**
+     * The allocator of the running application, for Hibernate generators that are not Spring beans
+     */
+    public static IdBlockAllocator get() {
+        IdBlockAllocator allocator = instance;
+        if (allocator == null) {
+            throw new IllegalStateException("Id allocator is not initialized yet");
+        }
+        return allocator;
+    }
+
+    @PostConstruct
+    void init() {
+        dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(SimpleDriverDataSource.class)
+                .build();
+        instance = this;
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        closeConnection();
+    }
+
+    /**
+     * Next unused id for the table
+     */
+    public long nextId(String table) {
+        return blocks.computeIfAbsent(table, Block::new).next();
+    }
+
+    private final class Block {
+
+        private final String table;
+        private long next;
+        private long limit;
+
+        Block(String table) {
+            this.table = table;
+        }
+
+        synchronized long next() {
+            if (next == limit) {
+                next = reserve(table);
+                limit = next + blockSize;
+            }
+            return next++;
+        }
+    }
+
+    /**
+     * Reserve the next block of ids for the table and return its first id
+     */
+    private synchronized long reserve(String table) {
+        try {
+            return reserveOn(openConnection(), table);
+        } catch (SQLException e) {
+            closeConnection();
+            throw new IllegalStateException("Could not reserve ids for table " + table, e);
+        }
+    }
+
+    private long reserveOn(Connection connection, String table) throws SQLException {
+        try {
+            Long stored = lockCounter(connection, table);
+            if (stored == null) {
+                stored = 1L;
+                try (PreparedStatement insert = connection.prepareStatement(
+                        "INSERT INTO id_generators (sequence_name, next_val) VALUES (?, ?)")) {
+                    insert.setString(1, table);
+                    insert.setLong(2, stored);
+                    insert.executeUpdate();
+                } catch (SQLException e) {
+                    // Another instance created the counter first: lock theirs
+                    connection.rollback();
+                    stored = lockCounter(connection, table);
+                    if (stored == null) {
+                        throw e;
+                    }
+                }
+            }
+
+            long start = Math.max(stored, maxId(connection, table) + 1);
+            try (PreparedStatement update = connection.prepareStatement(
+                    "UPDATE id_generators SET next_val = ? WHERE sequence_name = ?")) {
+                update.setLong(1, start + blockSize);
+                update.setString(2, table);
+                update.executeUpdate();
+            }
+            connection.commit();
+            return start;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        }
+    }
+
+    private Long lockCounter(Connection connection, String table) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT next_val FROM id_generators WHERE sequence_name = ? FOR UPDATE")) {
+            select.setString(1, table);
+            try (ResultSet rs = select.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : null;
+            }
+        }
+    }
+
+    private long maxId(Connection connection, String table) throws SQLException {
+        // Table names come from entity mappings, never from input
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT MAX(id) FROM " + table)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private Connection openConnection() throws SQLException {
+        if (connection == null) {
+            connection = dataSource.getConnection();
+            connection.setAutoCommit(false);
+        }
+        if (!tableCreated) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE IF NOT EXISTS id_generators (" +
+                        "sequence_name VARCHAR(255) NOT NULL PRIMARY KEY, next_val BIGINT NOT NULL)");
+            }
+            connection.commit();
+            tableCreated = true;
+        }
+        return connection;
+    }
+
+    private void closeConnection() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // The connection is discarded either way
+            }
+            connection = null;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.farm.marketplace.repository;
+
+import com.farm.marketplace.model.InventoryLedgerEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface InventoryLedgerRepository extends JpaRepository<InventoryLedgerEntry, Long> {
+    
+    /**
+     * Most recent stock changes for a product, newest first
+     */
+    List<InventoryLedgerEntry> findByProductIdOrderByCreatedAtDescIdDesc(Long productId, Pageable pageable);
+}
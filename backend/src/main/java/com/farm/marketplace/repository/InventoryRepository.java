@@ -1,17 +1,31 @@
 package com.farm.marketplace.repository;
 
+import com.farm.marketplace.dto.InventoryResponse;
 import com.farm.marketplace.model.Inventory;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import jakarta.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface InventoryRepository extends JpaRepository<Inventory, Long> {
     
+    /**
+     * Projects inventory rows straight into InventoryResponse, joining the product name
+     */
+    String INVENTORY_RESPONSE_SELECT =
+            "SELECT new com.farm.marketplace.dto.InventoryResponse(" +
+            "i.id, i.productId, p.name, i.availableQuantity, i.reservedQuantity, " +
+            "i.availableQuantity + i.reservedQuantity, i.lastUpdated, i.createdAt) " +
+            "FROM Inventory i JOIN Product p ON p.id = i.productId ";
+    
     /**
      * Find inventory by product ID with pessimistic lock to prevent race conditions
      */
@@ -19,6 +33,17 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
     @Query("SELECT i FROM Inventory i WHERE i.productId = :productId")
     Optional<Inventory> findByProductIdWithLock(Long productId);
     
+    /**
+     * Take stock off in one statement, only if enough is available.
+     * Returns the number of rows updated; zero means out of stock (or no inventory row).
+     */
+    @Modifying
+    @Query("UPDATE Inventory i SET i.availableQuantity = i.availableQuantity - :quantity, i.lastUpdated = :now " +
+           "WHERE i.productId = :productId AND i.availableQuantity >= :quantity")
+    int decrementIfAvailable(@Param("productId") Long productId,
+                             @Param("quantity") Integer quantity,
+                             @Param("now") LocalDateTime now);
+    
     /**
      * Find inventory by product ID (read-only)
      */
@@ -28,4 +53,16 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
      * Check if inventory exists for a product
      */
     boolean existsByProductId(Long productId);
+    
+    /**
+     * All inventory rows with product names in a single query
+     */
+    @Query(INVENTORY_RESPONSE_SELECT)
+    List<InventoryResponse> findAllInventoryResponses();
+    
+    /**
+     * Inventory rows for a farmer's products in a single query
+     */
+    @Query(INVENTORY_RESPONSE_SELECT + "WHERE p.farmerId = :farmerId")
+    List<InventoryResponse> findInventoryResponsesByFarmerId(@Param("farmerId") Long farmerId);
 }
@@ -0,0 +1,84 @@
+package com.farm.marketplace.repository;
+
+import com.farm.marketplace.model.InventoryShard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface InventoryShardRepository extends JpaRepository<InventoryShard, Long> {
+    
+    /**
+     * Id and stock of a shard, read without loading the entity
+     */
+    interface ShardStock {
+        Long getId();
+        Integer getAvailableQuantity();
+    }
+    
+    /**
+     * Current stock of every shard of a product (no locks)
+     */
+    @Query("SELECT s.id AS id, s.availableQuantity AS availableQuantity FROM InventoryShard s " +
+           "WHERE s.productId = :productId ORDER BY s.shardIndex")
+    List<ShardStock> findStockByProductId(@Param("productId") Long productId);
+    
+    /**
+     * Lock every shard of a product, always in shard order to avoid deadlocks
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM InventoryShard s WHERE s.productId = :productId ORDER BY s.shardIndex")
+    List<InventoryShard> findByProductIdWithLock(@Param("productId") Long productId);
+    
+    /**
+     * Lock one shard if it has enough stock and no other transaction holds it; never waits.
+     * Native SQL because Hibernate's H2 dialect would turn SKIP LOCKED into a waiting FOR UPDATE.
+     */
+    @Query(value = "SELECT id FROM inventory_shards WHERE id = :id AND available_quantity >= :quantity " +
+                   "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<Long> claimIfAvailable(@Param("id") Long id, @Param("quantity") Integer quantity);
+    
+    /**
+     * Take stock off one shard, only if that shard has enough
+     */
+    @Modifying
+    @Query("UPDATE InventoryShard s SET s.availableQuantity = s.availableQuantity - :quantity " +
+           "WHERE s.id = :id AND s.availableQuantity >= :quantity")
+    int decrementIfAvailable(@Param("id") Long id, @Param("quantity") Integer quantity);
+    
+    /**
+     * Add stock to one shard
+     */
+    @Modifying
+    @Query("UPDATE InventoryShard s SET s.availableQuantity = s.availableQuantity + :quantity WHERE s.id = :id")
+    int increment(@Param("id") Long id, @Param("quantity") Integer quantity);
+    
+    /**
+     * Total available stock of a product across its shards, null when it has none
+     */
+    @Query("SELECT SUM(s.availableQuantity) FROM InventoryShard s WHERE s.productId = :productId")
+    Long sumAvailableQuantity(@Param("productId") Long productId);
+    
+    /**
+     * Total available stock per product for the given products that are sharded
+     */
+    @Query("SELECT s.productId, SUM(s.availableQuantity) FROM InventoryShard s " +
+           "WHERE s.productId IN :productIds GROUP BY s.productId")
+    List<Object[]> sumAvailableQuantityByProductIds(@Param("productIds") Collection<Long> productIds);
+    
+    /**
+     * Products whose inventory is currently sharded
+     */
+    @Query("SELECT DISTINCT s.productId FROM InventoryShard s")
+    List<Long> findShardedProductIds();
+    
+    boolean existsByProductId(Long productId);
+}
@@ -1,19 +1,57 @@
 package com.farm.marketplace.repository;
 
+import com.farm.marketplace.dto.OrderResponse;
 import com.farm.marketplace.model.Order;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     
+    /**
+     * Projects orders straight into OrderResponse, joining product, farmer and buyer names
+     */
+    String ORDER_RESPONSE_SELECT =
+            "SELECT new com.farm.marketplace.dto.OrderResponse(" +
+            "o.id, o.productId, p.name, o.buyerId, b.name, p.farmerId, f.name, " +
+            "o.quantity, o.totalPrice, o.status, o.createdAt, o.updatedAt) " +
+            "FROM Order o " +
+            "LEFT JOIN Product p ON p.id = o.productId " +
+            "LEFT JOIN User f ON f.id = p.farmerId " +
+            "LEFT JOIN User b ON b.id = o.buyerId ";
+    
     List<Order> findByBuyerId(Long buyerId);
     
     @Query("SELECT o FROM Order o WHERE o.productId IN " +
            "(SELECT p.id FROM Product p WHERE p.farmerId = :farmerId)")
     List<Order> findOrdersByFarmerId(@Param("farmerId") Long farmerId);
+    
+    /**
+     * All orders with names resolved in a single query
+     */
+    @Query(ORDER_RESPONSE_SELECT)
+    List<OrderResponse> findAllOrderResponses();
+    
+    /**
+     * Orders of a buyer with names resolved in a single query
+     */
+    @Query(ORDER_RESPONSE_SELECT + "WHERE o.buyerId = :buyerId")
+    List<OrderResponse> findOrderResponsesByBuyerId(@Param("buyerId") Long buyerId);
+    
+    /**
+     * Orders for a farmer's products with names resolved in a single query
+     */
+    @Query(ORDER_RESPONSE_SELECT + "WHERE p.farmerId = :farmerId")
+    List<OrderResponse> findOrderResponsesByFarmerId(@Param("farmerId") Long farmerId);
+    
+    /**
+     * Given orders with names resolved in a single query
+     */
+    @Query(ORDER_RESPONSE_SELECT + "WHERE o.id IN :ids ORDER BY o.id")
+    List<OrderResponse> findOrderResponsesByIds(@Param("ids") Collection<Long> ids);
 }
@@ -1,12 +1,76 @@
 package com.farm.marketplace.repository;
 
 import com.farm.marketplace.model.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
+    
+    /**
+     * Coordinates of a product, for building the nearby-search index
+     */
+    interface ProductCoordinates {
+        Long getId();
+        Double getLatitude();
+        Double getLongitude();
+    }
+    
+    /**
+     * Row count and newest update time of the catalog, for conditional GETs
+     */
+    interface CatalogVersion {
+        long getCount();
+        LocalDateTime getLastUpdated();
+    }
+    
     List<Product> findByFarmerId(Long farmerId);
+    
+    /**
+     * Load products by id with a query, i.e. always from the database
+     */
+    List<Product> findByIdIn(Collection<Long> ids);
+    
+    /**
+     * Row count and newest updatedAt across all products (MAX is answered from idx_products_updated_at)
+     */
+    @Query("SELECT COUNT(p) AS count, MAX(p.updatedAt) AS lastUpdated FROM Product p")
+    CatalogVersion findCatalogVersion();
+    
+    /**
+     * Just the updatedAt of one product, for conditional GETs
+     */
+    @Query("SELECT p.updatedAt FROM Product p WHERE p.id = :id")
+    Optional<LocalDateTime> findUpdatedAtById(@Param("id") Long id);
+    
+    /**
+     * Next page (by id) of products that have coordinates
+     */
+    @Query("SELECT p.id AS id, p.latitude AS latitude, p.longitude AS longitude FROM Product p " +
+           "WHERE p.id > :afterId AND p.latitude IS NOT NULL AND p.longitude IS NOT NULL ORDER BY p.id")
+    List<ProductCoordinates> findCoordinatesAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    /**
+     * First catalog page, newest first
+     */
+    @Query("SELECT p FROM Product p ORDER BY p.createdAt DESC, p.id DESC")
+    List<Product> findCatalogFirstPage(Pageable pageable);
+    
+    /**
+     * Catalog page seeking past the (createdAt, id) of the last row already returned
+     */
+    @Query("SELECT p FROM Product p " +
+           "WHERE p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Product> findCatalogPageAfter(@Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") Long id,
+                                       Pageable pageable);
 }
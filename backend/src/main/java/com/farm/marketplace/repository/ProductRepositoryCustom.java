@@ -0,0 +1,36 @@
+package com.farm.marketplace.repository;
+
+import com.farm.marketplace.model.Product;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Product reads and writes that need to cooperate with the second-level cache
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Load products by id, taking cached rows from the second-level cache and
+     * fetching only the misses from the database
+     */
+    List<Product> findAllById(Iterable<Long> ids);
+
+    /**
+     * Load a product straight from the database, skipping the second-level cache
+     * (for reads whose quantity must be current, e.g. inventory sync)
+     */
+    Optional<Product> findByIdBypassingCache(Long id);
+
+    /**
+     * Adjust the product quantity in place, without a read-modify-write. The cached
+     * product is left as is: the caller evicts it.
+     */
+    int adjustQuantity(Long id, Integer delta, LocalDateTime now);
+
+    /**
+     * Overwrite the product quantity in place (manual inventory updates); the caller evicts the cached product
+     */
+    int setQuantity(Long id, Integer quantity, LocalDateTime now);
+}
@@ -0,0 +1,55 @@
+package com.farm.marketplace.repository;
+
+import com.farm.marketplace.model.Product;
+import jakarta.persistence.CacheRetrieveMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Quantity writes run as plain SQL rather than JPQL bulk updates: a JPQL UPDATE on Product
+ * makes Hibernate clear the whole Product cache region, which on every order would empty the
+ * cache. Callers evict just the row they wrote (InventoryService.adjustProductQuantity).
+ * JdbcTemplate joins the caller's transaction.
+ */
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Product> findAllById(Iterable<Long> ids) {
+        return CachedMultiLoad.load(entityManager, Product.class, ids);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Product> findByIdBypassingCache(Long id) {
+        return Optional.ofNullable(entityManager.find(Product.class, id,
+                Map.of(SpecHints.HINT_SPEC_CACHE_RETRIEVE_MODE, CacheRetrieveMode.BYPASS)));
+    }
+
+    @Override
+    public int adjustQuantity(Long id, Integer delta, LocalDateTime now) {
+        return jdbcTemplate.update(
+                "UPDATE products SET quantity = quantity + ?, updated_at = ? WHERE id = ?", delta, now, id);
+    }
+
+    @Override
+    public int setQuantity(Long id, Integer quantity, LocalDateTime now) {
+        return jdbcTemplate.update(
+                "UPDATE products SET quantity = ?, updated_at = ? WHERE id = ?", quantity, now, id);
+    }
+}
@@ -0,0 +1,17 @@
+package com.farm.marketplace.repository;
+
+import com.farm.marketplace.model.User;
+
+import java.util.List;
+
+/**
+ * User reads that need to cooperate with the second-level cache
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Load users by id, taking cached rows from the second-level cache and
+     * fetching only the misses from the database
+     */
+    List<User> findAllById(Iterable<Long> ids);
+}
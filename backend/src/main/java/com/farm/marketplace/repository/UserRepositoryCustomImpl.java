@@ -0,0 +1,23 @@
+package com.farm.marketplace.repository;
+
+import com.farm.marketplace.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Second-level-cache-aware user lookups
+ */
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<User> findAllById(Iterable<Long> ids) {
+        return CachedMultiLoad.load(entityManager, User.class, ids);
+    }
+}
@@ -1,6 +1,8 @@
 package com.farm.marketplace.security;
 
-import com.farm.marketplace.service.CustomUserDetailsService;
+import com.farm.marketplace.repository.UserRepository;
+import com.farm.marketplace.service.MarketplaceMetrics;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,7 +10,6 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -22,7 +23,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private JwtUtil jwtUtil;
 
     @Autowired
-    private CustomUserDetailsService userDetailsService;
+    private UserRepository userRepository;
+
+    @Autowired
+    private MarketplaceMetrics metrics;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -30,26 +34,34 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwt = null;
+        Claims claims = null;
 
-        // Extract JWT token from Authorization header
+        // Extract and verify JWT token from Authorization header (signature and expiry, in one parse)
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
+            String jwt = authorizationHeader.substring(7);
+            long start = System.nanoTime();
             try {
-                username = jwtUtil.extractUsername(jwt);
+                claims = jwtUtil.parseVerifiedClaims(jwt);
             } catch (Exception e) {
-                logger.error("Error extracting username from JWT: " + e.getMessage());
+                logger.error("Error validating JWT: " + e.getMessage());
+            } finally {
+                metrics.recordJwtValidation(System.nanoTime() - start, claims != null);
             }
         }
 
-        // Validate token and set authentication
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        // Set authentication from the verified claims
+        if (claims != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // Build the principal from token claims; only tokens issued before claims existed need a lookup
+            AuthenticatedUser user = jwtUtil.toAuthenticatedUser(claims);
+            if (user == null) {
+                user = userRepository.findByEmail(claims.getSubject())
+                        .map(AuthenticatedUser::from)
+                        .orElse(null);
+            }
 
-            if (jwtUtil.validateToken(jwt, userDetails)) {
+            if (user != null) {
                 UsernamePasswordAuthenticationToken authenticationToken =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                        new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
                 authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authenticationToken);
             }
@@ -42,7 +42,7 @@ public class AuthService {
         User savedUser = userRepository.save(user);
 
         // Generate JWT token
-        String token = jwtUtil.generateToken(savedUser.getEmail());
+        String token = jwtUtil.generateToken(savedUser);
 
         return new AuthResponse(token, savedUser.getId(), savedUser.getEmail(), savedUser.getName(), savedUser.getRole());
     }
@@ -59,7 +59,7 @@ public class AuthService {
                     .orElseThrow(() -> new RuntimeException("User not found"));
 
             // Generate JWT token
-            String token = jwtUtil.generateToken(user.getEmail());
+            String token = jwtUtil.generateToken(user);
 
             return new AuthResponse(token, user.getId(), user.getEmail(), user.getName(), user.getRole());
 
@@ -0,0 +1,228 @@
+package com.farm.marketplace.service;
+
+import com.farm.marketplace.dto.ProductResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The full product list (GET /api/products) held in memory as ready-to-send JSON, plain and
+ * gzipped. Each product is encoded once and kept by id in chunks of consecutive ids; each chunk
+ * keeps its joined JSON, its own gzip member and an MD5 digest. When products change only their
+ * chunks are re-encoded and compressed again; the body is the chunks joined with commas, and the
+ * gzipped body is their members concatenated (a gzip stream may hold several members, which
+ * decompress to the concatenated data). The new snapshot replaces the old one in a single
+ * volatile write, so readers never see a half-built list.
+ * ProductService owns loading and mapping; this class only stores and assembles.
+ */
+@Component
+public class CatalogSnapshot {
+
+    // Product ids per chunk: one stock change re-compresses at most this many products
+    static final int CHUNK_SPAN = 256;
+
+    private static final byte[] GZIP_OPEN = gzip(new byte[] {'['});
+    private static final byte[] GZIP_COMMA = gzip(new byte[] {','});
+    private static final byte[] GZIP_CLOSE = gzip(new byte[] {']'});
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * One immutable version of the catalog
+     */
+    public record Snapshot(byte[] json, byte[] gzipped, String eTag, String gzipETag, long lastModified) {
+    }
+
+    private volatile Snapshot current;
+
+    // id / CHUNK_SPAN -> chunk, in id order; guarded by this
+    private final NavigableMap<Long, Chunk> chunks = new TreeMap<>();
+
+    // Chunks whose entries changed since the last publish; guarded by this
+    private final Set<Chunk> staleChunks = new HashSet<>();
+
+    // Products changed by committed transactions and not yet re-encoded
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Encoded products of one id range, with their joined JSON and its gzip member
+     */
+    private static final class Chunk {
+        private final NavigableMap<Long, byte[]> entries = new TreeMap<>();
+        private byte[] json;
+        private byte[] gzipped;
+        private byte[] digest;
+    }
+
+    /**
+     * The latest snapshot, or null until the first build has finished
+     */
+    public Snapshot current() {
+        return current;
+    }
+
+    /**
+     * Note that a product was created, changed or deleted; takes effect after commit
+     */
+    public void markChanged(Long productId) {
+        markChanged(List.of(productId));
+    }
+
+    /**
+     * Note that several products changed (bulk import); takes effect after commit
+     */
+    public void markChanged(Collection<Long> productIds) {
+        List<Long> ids = List.copyOf(productIds);
+        TransactionCallbacks.afterCommit(() -> pending.addAll(ids));
+    }
+
+    /**
+     * Take the pending product ids (empty until the first build, so early changes are kept for it)
+     */
+    Set<Long> drainChanges() {
+        if (current == null || pending.isEmpty()) {
+            return Set.of();
+        }
+        Set<Long> drained = new HashSet<>();
+        for (Iterator<Long> iterator = pending.iterator(); iterator.hasNext(); ) {
+            drained.add(iterator.next());
+            iterator.remove();
+        }
+        return drained;
+    }
+
+    /**
+     * Replace the whole catalog (startup and periodic full rebuilds)
+     */
+    synchronized void replaceAll(List<ProductResponse> products) {
+        chunks.clear();
+        staleChunks.clear();
+        for (ProductResponse product : products) {
+            put(product);
+        }
+        publish();
+    }
+
+    /**
+     * Re-encode the changed products that still exist and drop the ones that do not
+     */
+    synchronized void apply(Set<Long> changedIds, List<ProductResponse> products) {
+        Set<Long> removed = new HashSet<>(changedIds);
+        for (ProductResponse product : products) {
+            put(product);
+            removed.remove(product.getId());
+        }
+        for (Long id : removed) {
+            Chunk chunk = chunks.get(id / CHUNK_SPAN);
+            if (chunk != null && chunk.entries.remove(id) != null) {
+                staleChunks.add(chunk);
+                if (chunk.entries.isEmpty()) {
+                    chunks.remove(id / CHUNK_SPAN);
+                }
+            }
+        }
+        publish();
+    }
+
+    // Callers hold the monitor
+    private void put(ProductResponse product) {
+        Chunk chunk = chunks.computeIfAbsent(product.getId() / CHUNK_SPAN, key -> new Chunk());
+        chunk.entries.put(product.getId(), encode(product));
+        staleChunks.add(chunk);
+    }
+
+    // Callers hold the monitor
+    private void publish() {
+        for (Chunk chunk : staleChunks) {
+            seal(chunk);
+        }
+        staleChunks.clear();
+
+        int size = 2 + Math.max(0, chunks.size() - 1);
+        int gzippedSize = GZIP_OPEN.length + GZIP_CLOSE.length + Math.max(0, chunks.size() - 1) * GZIP_COMMA.length;
+        ByteArrayOutputStream digests = new ByteArrayOutputStream(chunks.size() * 16);
+        for (Chunk chunk : chunks.values()) {
+            size += chunk.json.length;
+            gzippedSize += chunk.gzipped.length;
+            digests.write(chunk.digest, 0, chunk.digest.length);
+        }
+
+        // The chunk digests stand for the whole body, so it is never hashed in full
+        String digest = DigestUtils.md5DigestAsHex(digests.toByteArray());
+        String eTag = '"' + digest + '"';
+        Snapshot previous = current;
+        if (previous != null && previous.eTag().equals(eTag)) {
+            return;   // Same bytes: keep the old Last-Modified
+        }
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream(size);
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream(gzippedSize);
+        json.write('[');
+        gzipped.write(GZIP_OPEN, 0, GZIP_OPEN.length);
+        boolean first = true;
+        for (Chunk chunk : chunks.values()) {
+            if (!first) {
+                json.write(',');
+                gzipped.write(GZIP_COMMA, 0, GZIP_COMMA.length);
+            }
+            json.write(chunk.json, 0, chunk.json.length);
+            gzipped.write(chunk.gzipped, 0, chunk.gzipped.length);
+            first = false;
+        }
+        json.write(']');
+        gzipped.write(GZIP_CLOSE, 0, GZIP_CLOSE.length);
+
+        current = new Snapshot(json.toByteArray(), gzipped.toByteArray(), eTag, '"' + digest + "-gzip\"",
+                System.currentTimeMillis());
+    }
+
+    /**
+     * Join a chunk's entries with commas, then compress and hash the result
+     */
+    private static void seal(Chunk chunk) {
+        int size = Math.max(0, chunk.entries.size() - 1);
+        for (byte[] entry : chunk.entries.values()) {
+            size += entry.length;
+        }
+        ByteArrayOutputStream json = new ByteArrayOutputStream(size);
+        boolean first = true;
+        for (byte[] entry : chunk.entries.values()) {
+            if (!first) {
+                json.write(',');
+            }
+            json.write(entry, 0, entry.length);
+            first = false;
+        }
+        chunk.json = json.toByteArray();
+        chunk.gzipped = gzip(chunk.json);
+        chunk.digest = DigestUtils.md5Digest(chunk.json);
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return gzipped.toByteArray();
+    }
+
+    private byte[] encode(ProductResponse product) {
+        try {
+            return objectMapper.writeValueAsBytes(product);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode product " + product.getId(), e);
+        }
+    }
+}
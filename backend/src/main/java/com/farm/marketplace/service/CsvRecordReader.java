@@ -0,0 +1,100 @@
+package com.farm.marketplace.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads CSV records one at a time (RFC 4180): fields may be double-quoted, quotes inside them
+ * are doubled, and a quoted field may span several lines. Records end at LF or CRLF.
+ */
+final class CsvRecordReader {
+
+    private final Reader reader;
+    private long line = 1;
+    private long recordLine;
+    private int pushedBack = -1;
+
+    CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Line number (1-based) where the last record returned by next() starts
+     */
+    long getRecordLine() {
+        return recordLine;
+    }
+
+    /**
+     * The fields of the next record, or null at end of input.
+     * Throws IllegalArgumentException if the input ends inside a quoted field.
+     */
+    List<String> next() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (; c != -1; c = read()) {
+            if (quoted) {
+                if (c != '"') {
+                    field.append((char) c);
+                    if (c == '\n') {
+                        line++;
+                    }
+                    continue;
+                }
+                int following = read();
+                if (following == '"') {
+                    field.append('"');
+                } else {
+                    quoted = false;
+                    unread(following);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                line++;
+                break;
+            } else if (c == '\r') {
+                int following = read();
+                if (following != '\n') {
+                    unread(following);
+                    field.append('\r');
+                    continue;
+                }
+                line++;
+                break;
+            } else {
+                field.append((char) c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -1) {
+            int c = pushedBack;
+            pushedBack = -1;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private void unread(int c) {
+        pushedBack = c;
+    }
+}
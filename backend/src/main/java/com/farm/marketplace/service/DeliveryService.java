@@ -12,6 +12,9 @@ import com.farm.marketplace.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -36,6 +39,9 @@ public class DeliveryService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private MarketplaceMetrics metrics;
+    
     /**
      * Create delivery entry for an order (called when order is shipped)
      */
@@ -50,8 +56,8 @@ public class DeliveryService {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
         
-        // Verify order is shipped
-        if (order.getStatus() != OrderStatus.SHIPPED) {
+        // Verify order is shipped (or already delivered, when the outbox worker catches up late)
+        if (order.getStatus() != OrderStatus.SHIPPED && order.getStatus() != OrderStatus.DELIVERED) {
             throw new RuntimeException("Cannot create delivery for order that is not shipped. Current status: " + order.getStatus());
         }
         
@@ -64,6 +70,15 @@ public class DeliveryService {
         delivery.setOrderId(orderId);
         delivery.setFarmerId(product.getFarmerId());
         delivery.setBuyerId(order.getBuyerId());
+        
+        // Snapshot names so reads don't have to look them up
+        delivery.setProductName(product.getName());
+        userRepository.findById(product.getFarmerId()).ifPresent(farmer -> {
+            delivery.setFarmerName(farmer.getName());
+        });
+        userRepository.findById(order.getBuyerId()).ifPresent(buyer -> {
+            delivery.setBuyerName(buyer.getName());
+        });
         delivery.setDeliveryStatus(DeliveryStatus.PENDING);
         
         // Set estimated delivery date (default 3 days if not provided)
@@ -101,7 +116,9 @@ public class DeliveryService {
         request.setEstimatedDeliveryDate(LocalDate.now().plusDays(3));
         request.setTrackingLocation("Warehouse - Preparing for shipment");
         
-        return createDelivery(orderId, request);
+        DeliveryResponse response = createDelivery(orderId, request);
+        metrics.recordAutoCreatedDelivery();
+        return response;
     }
     
     /**
@@ -189,6 +206,31 @@ public class DeliveryService {
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Refresh product name snapshots in the background after a product is renamed
+     */
+    @Async
+    @Transactional
+    public void refreshProductName(Long productId, String productName) {
+        int updated = deliveryRepository.updateProductName(productId, productName);
+        logger.info("Refreshed product name on {} deliveries for product ID: {}", updated, productId);
+    }
+    
+    /**
+     * Backfill name snapshots on deliveries created before they were stored
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillNameSnapshots() {
+        int farmers = deliveryRepository.backfillFarmerNames();
+        int buyers = deliveryRepository.backfillBuyerNames();
+        int products = deliveryRepository.backfillProductNames();
+        if (farmers + buyers + products > 0) {
+            logger.info("Backfilled delivery name snapshots | Farmer: {} | Buyer: {} | Product: {}",
+                        farmers, buyers, products);
+        }
+    }
+    
     /**
      * Map Delivery entity to DeliveryResponse DTO
      */
@@ -197,7 +239,10 @@ public class DeliveryService {
         response.setId(delivery.getId());
         response.setOrderId(delivery.getOrderId());
         response.setFarmerId(delivery.getFarmerId());
+        response.setFarmerName(delivery.getFarmerName());
         response.setBuyerId(delivery.getBuyerId());
+        response.setBuyerName(delivery.getBuyerName());
+        response.setProductName(delivery.getProductName());
         response.setDeliveryStatus(delivery.getDeliveryStatus());
         response.setEstimatedDeliveryDate(delivery.getEstimatedDeliveryDate());
         response.setActualDeliveryDate(delivery.getActualDeliveryDate());
@@ -205,24 +250,6 @@ public class DeliveryService {
         response.setDeliveryNotes(delivery.getDeliveryNotes());
         response.setCreatedAt(delivery.getCreatedAt());
         response.setUpdatedAt(delivery.getUpdatedAt());
-        
-        // Get farmer name
-        userRepository.findById(delivery.getFarmerId()).ifPresent(farmer -> {
-            response.setFarmerName(farmer.getName());
-        });
-        
-        // Get buyer name
-        userRepository.findById(delivery.getBuyerId()).ifPresent(buyer -> {
-            response.setBuyerName(buyer.getName());
-        });
-        
-        // Get product name from order
-        orderRepository.findById(delivery.getOrderId()).ifPresent(order -> {
-            productRepository.findById(order.getProductId()).ifPresent(product -> {
-                response.setProductName(product.getName());
-            });
-        });
-        
         return response;
     }
 }
@@ -0,0 +1,38 @@
+package com.farm.marketplace.service;
+
+import com.farm.marketplace.model.Product;
+import com.farm.marketplace.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops Product and User rows from the Hibernate second-level cache. Entries are evicted
+ * immediately and again after commit, so a reader that cached the old row while the
+ * transaction was still open cannot keep serving it.
+ */
+@Component
+public class EntityCacheEvictor {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Evict one product
+     */
+    public void evictProduct(Long productId) {
+        evict(Product.class, productId);
+    }
+
+    /**
+     * Evict one user
+     */
+    public void evictUser(Long userId) {
+        evict(User.class, userId);
+    }
+
+    private void evict(Class<?> entityClass, Long id) {
+        entityManagerFactory.getCache().evict(entityClass, id);
+        TransactionCallbacks.afterCompletion(() -> entityManagerFactory.getCache().evict(entityClass, id));
+    }
+}
@@ -0,0 +1,172 @@
+package com.farm.marketplace.service;
+
+import com.farm.marketplace.dto.DeliveryResponse;
+import com.farm.marketplace.dto.OrderResponse;
+import com.farm.marketplace.exception.UnauthorizedException;
+import com.farm.marketplace.model.Role;
+import com.farm.marketplace.repository.DeliveryRepository;
+import com.farm.marketplace.repository.OrderRepository;
+import com.farm.marketplace.security.AuthenticatedUser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Admin exports of orders and deliveries. Rows are projected straight into DTOs and read
+ * through a forward-only JPA stream inside a read-only transaction, then written to the
+ * response one at a time, so heap use does not grow with the table.
+ */
+@Service
+public class ExportService {
+
+    private static final List<String> ORDER_COLUMNS = List.of(
+            "id", "product_id", "product_name", "buyer_id", "buyer_name", "farmer_id", "farmer_name",
+            "quantity", "total_price", "status", "created_at", "updated_at");
+
+    private static final List<String> DELIVERY_COLUMNS = List.of(
+            "id", "order_id", "farmer_id", "farmer_name", "buyer_id", "buyer_name", "product_name",
+            "delivery_status", "estimated_delivery_date", "actual_delivery_date", "tracking_location",
+            "delivery_notes", "created_at", "updated_at");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Integer.MIN_VALUE makes MySQL Connector/J stream rows instead of buffering the result set
+    @Value("${export.fetch-size:-2147483648}")
+    private int fetchSize;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Stream every order (Admin only). The role is checked now, on the request thread.
+     */
+    public StreamingResponseBody exportOrders(ExportFormat format) {
+        requireAdmin("Only admins can export orders");
+        return out -> export(OrderRepository.ORDER_RESPONSE_SELECT + "ORDER BY o.id", OrderResponse.class,
+                format, ORDER_COLUMNS, this::orderRow, out);
+    }
+
+    /**
+     * Stream every delivery (Admin only). The role is checked now, on the request thread.
+     */
+    public StreamingResponseBody exportDeliveries(ExportFormat format) {
+        requireAdmin("Only admins can export deliveries");
+        return out -> export(DeliveryRepository.DELIVERY_RESPONSE_SELECT + "ORDER BY d.id", DeliveryResponse.class,
+                format, DELIVERY_COLUMNS, this::deliveryRow, out);
+    }
+
+    private <T> void export(String jpql, Class<T> type, ExportFormat format, List<String> columns,
+                            Function<T, Object[]> toRow, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writer.write(String.join(",", columns));
+            writer.write('\n');
+        }
+
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<T> rows = entityManager.createQuery(jpql, type)
+                        .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                        .setHint(HibernateHints.HINT_READ_ONLY, true)
+                        .getResultStream()) {
+                    rows.forEach(row -> writeRow(writer, format, row, toRow));
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private <T> void writeRow(Writer writer, ExportFormat format, T row, Function<T, Object[]> toRow) {
+        try {
+            if (format == ExportFormat.NDJSON) {
+                writer.write(objectMapper.writeValueAsString(row));
+            } else {
+                Object[] values = toRow.apply(row);
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(csvValue(values[i]));
+                }
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Object[] orderRow(OrderResponse order) {
+        return new Object[] {
+                order.getId(), order.getProductId(), order.getProductName(), order.getBuyerId(),
+                order.getBuyerName(), order.getFarmerId(), order.getFarmerName(), order.getQuantity(),
+                order.getTotalPrice(), order.getStatus(), order.getCreatedAt(), order.getUpdatedAt()
+        };
+    }
+
+    private Object[] deliveryRow(DeliveryResponse delivery) {
+        return new Object[] {
+                delivery.getId(), delivery.getOrderId(), delivery.getFarmerId(), delivery.getFarmerName(),
+                delivery.getBuyerId(), delivery.getBuyerName(), delivery.getProductName(),
+                delivery.getDeliveryStatus(), delivery.getEstimatedDeliveryDate(), delivery.getActualDeliveryDate(),
+                delivery.getTrackingLocation(), delivery.getDeliveryNotes(), delivery.getCreatedAt(),
+                delivery.getUpdatedAt()
+        };
+    }
+
+    /**
+     * Quote a CSV value when it contains a separator, quote or line break
+     */
+    private static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    private void requireAdmin(String message) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        if (user.getRole() != Role.ADMIN) {
+            throw new UnauthorizedException(message);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.farm.marketplace.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Group-commit stock reservations for hot products.
+ * Each hot product gets a single-writer queue; the writer applies queued reservations
+ * in batches under one row lock and one commit, then tells each waiting order whether it got stock.
+ */
+@Service
+public class FlashSaleService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(FlashSaleService.class);
+    
+    @Autowired
+    private InventoryService inventoryService;
+    
+    @Value("${inventory.flash-sale.hot-product-ids:}")
+    private String configuredHotProductIds;
+    
+    @Value("${inventory.flash-sale.max-batch-size:500}")
+    private int maxBatchSize;
+    
+    @Value("${inventory.flash-sale.writer-threads:4}")
+    private int writerThreads;
+    
+    @Value("${inventory.flash-sale.wait-timeout-ms:5000}")
+    private long waitTimeoutMs;
+    
+    @Value("${inventory.flash-sale.release-retry-delay-ms:1000}")
+    private long releaseRetryDelayMs;
+    
+    private final Set<Long> hotProductIds = ConcurrentHashMap.newKeySet();
+    
+    private final Map<Long, ProductLane> lanes = new ConcurrentHashMap<>();
+    
+    private ExecutorService writers;
+    
+    @PostConstruct
+    void init() {
+        for (String productId : configuredHotProductIds.split(",")) {
+            if (!productId.isBlank()) {
+                hotProductIds.add(Long.parseLong(productId.trim()));
+            }
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        writers = Executors.newFixedThreadPool(writerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "flash-sale-writer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        writers.shutdown();
+    }
+    
+    /**
+     * Whether orders for this product go through the flash-sale queue
+     */
+    public boolean isHot(Long productId) {
+        return hotProductIds.contains(productId);
+    }
+    
+    /**
+     * Flag or unflag a product for flash-sale ordering
+     */
+    public void setHot(Long productId, boolean hot) {
+        if (hot) {
+            hotProductIds.add(productId);
+        } else {
+            hotProductIds.remove(productId);
+        }
+        logger.info("Flash-sale mode {} for product ID: {}", hot ? "enabled" : "disabled", productId);
+    }
+    
+    /**
+     * Reserve stock through the product's batch writer. Returns false when sold out.
+     * The reservation is committed by the writer, so callers must not hold a transaction (and
+     * its connection) while waiting, and must release the stock if their order is not saved.
+     */
+    @Transactional(propagation = Propagation.NEVER)
+    public boolean reserve(Long productId, int quantity) {
+        StockRequest request = new StockRequest(quantity, false, new CompletableFuture<>());
+        lane(productId).submit(request);
+        
+        boolean granted;
+        try {
+            granted = request.result().get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (request.result().cancel(false)) {
+                throw new RuntimeException("Too many orders for this product right now. Please retry.");
+            }
+            // The writer answered while we were giving up: take its answer, or its failure
+            try {
+                granted = request.result().join();
+            } catch (CompletionException failure) {
+                throw new RuntimeException("Failed to reserve stock: " + failure.getCause().getMessage());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            request.result().cancel(false);
+            throw new RuntimeException("Interrupted while waiting for stock");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to reserve stock: " + e.getCause().getMessage());
+        }
+        return granted;
+    }
+    
+    /**
+     * Hand reserved stock back through the product's batch writer
+     */
+    public void release(Long productId, int quantity) {
+        lane(productId).submit(new StockRequest(quantity, true, new CompletableFuture<>()));
+    }
+    
+    private ProductLane lane(Long productId) {
+        return lanes.computeIfAbsent(productId, ProductLane::new);
+    }
+    
+    private record StockRequest(int quantity, boolean release, CompletableFuture<Boolean> result) {
+    }
+    
+    /**
+     * Queue for one product; the scheduled flag guarantees a single writer at a time
+     */
+    private final class ProductLane {
+        
+        private final Long productId;
+        private final Queue<StockRequest> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        
+        ProductLane(Long productId) {
+            this.productId = productId;
+        }
+        
+        void submit(StockRequest request) {
+            queue.add(request);
+            schedule();
+        }
+        
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                writers.execute(this::drain);
+            }
+        }
+        
+        private void drain() {
+            try {
+                List<StockRequest> batch = new ArrayList<>();
+                StockRequest next;
+                while (batch.size() < maxBatchSize && (next = queue.poll()) != null) {
+                    batch.add(next);
+                }
+                if (!batch.isEmpty()) {
+                    apply(batch);
+                }
+            } finally {
+                scheduled.set(false);
+                // Requests that arrived during this batch go in the next one
+                if (!queue.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+        
+        private void apply(List<StockRequest> batch) {
+            List<StockRequest> reservations = new ArrayList<>();
+            List<Integer> quantities = new ArrayList<>();
+            int released = 0;
+            for (StockRequest request : batch) {
+                if (request.release()) {
+                    released += request.quantity();
+                } else {
+                    reservations.add(request);
+                    quantities.add(request.quantity());
+                }
+            }
+            
+            boolean[] granted;
+            try {
+                granted = inventoryService.applyStockBatch(productId, quantities, released);
+            } catch (RuntimeException e) {
+                logger.error("Flash-sale batch failed for product ID: {} | Reservations: {} | Released: {} | {}",
+                             productId, reservations.size(), released, e.getMessage());
+                reservations.forEach(request -> request.result().completeExceptionally(e));
+                if (released > 0) {
+                    // Released stock must not be lost: queue it again once the database has had a moment
+                    int retry = released;
+                    CompletableFuture.runAsync(() -> release(productId, retry),
+                            CompletableFuture.delayedExecutor(releaseRetryDelayMs, TimeUnit.MILLISECONDS, writers));
+                }
+                return;
+            }
+            
+            for (int i = 0; i < reservations.size(); i++) {
+                StockRequest request = reservations.get(i);
+                // A waiter that timed out no longer wants its stock
+                if (!request.result().complete(granted[i]) && granted[i]) {
+                    release(productId, request.quantity());
+                }
+            }
+        }
+    }
+}
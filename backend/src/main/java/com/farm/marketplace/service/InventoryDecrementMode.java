@@ -0,0 +1,9 @@
+package com.farm.marketplace.service;
+
+/**
+ * How InventoryService.decreaseInventory takes stock off a product
+ */
+public enum InventoryDecrementMode {
+    LOCKING,  // SELECT ... FOR UPDATE, check, then save
+    ATOMIC    // Single conditional UPDATE; zero affected rows means out of stock
+}
@@ -0,0 +1,282 @@
+package com.farm.marketplace.service;
+
+import com.farm.marketplace.dto.InventoryLedgerResponse;
+import com.farm.marketplace.model.InventoryChangeReason;
+import com.farm.marketplace.model.InventoryLedgerEntry;
+import com.farm.marketplace.repository.IdBlockAllocator;
+import com.farm.marketplace.repository.InventoryLedgerRepository;
+import com.farm.marketplace.security.AuthenticatedUser;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Append-only inventory ledger. Changes are buffered in a bounded in-memory ring once their
+ * transaction commits and written to inventory_ledger in JDBC batches by a scheduled flush.
+ * The committing thread never writes: when the buffer is full it hands a batch to a single
+ * ledger writer thread, and if that thread is too far behind the batch is dead-lettered
+ * and counted as overflowed. A batch that fails to write is
+ * retried whole on the following scheduled flushes; after the last attempt its entries are
+ * written one per line to the dead-letter log so they can be replayed by hand.
+ */
+@Service
+public class InventoryLedgerService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(InventoryLedgerService.class);
+    private static final Logger deadLetterLogger =
+            LoggerFactory.getLogger(InventoryLedgerService.class.getName() + ".dead-letter");
+    
+    private static final String INSERT_SQL =
+            "INSERT INTO inventory_ledger (id, product_id, delta, reason, actor_id, order_id, note, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final int MAX_NOTE_LENGTH = 255;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private InventoryLedgerRepository ledgerRepository;
+    
+    @Autowired
+    private IdBlockAllocator idBlockAllocator;
+    
+    @Autowired
+    private MarketplaceMetrics metrics;
+    
+    @Value("${inventory.ledger.buffer-size:8192}")
+    private int bufferSize;
+    
+    @Value("${inventory.ledger.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${inventory.ledger.max-attempts:5}")
+    private int maxAttempts;
+    
+    @Value("${inventory.ledger.max-pending-batches:16}")
+    private int maxPendingBatches;
+    
+    private BlockingQueue<InventoryLedgerEntry> buffer;
+    
+    // Writes batches handed off by committing threads when the buffer is full
+    private ExecutorService overflowWriter;
+    
+    // Batches that failed to write, retried by the scheduled flush
+    private final Queue<FailedBatch> failedBatches = new ConcurrentLinkedQueue<>();
+    
+    private record FailedBatch(List<InventoryLedgerEntry> entries, int attempts) {
+    }
+    
+    @PostConstruct
+    void init() {
+        buffer = new ArrayBlockingQueue<>(bufferSize);
+        overflowWriter = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxPendingBatches), runnable -> {
+                    Thread thread = new Thread(runnable, "inventory-ledger-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+    
+    /**
+     * Record a stock change made by the current user. Inside a transaction the entry is
+     * only buffered after commit, so rolled-back changes never reach the ledger.
+     */
+    public void record(Long productId, int delta, InventoryChangeReason reason, Long orderId, String note) {
+        record(productId, delta, reason, currentActorId(), orderId, note);
+    }
+    
+    /**
+     * Record a stock change made by the given user (null for system changes)
+     */
+    public void record(Long productId, int delta, InventoryChangeReason reason, Long actorId, Long orderId,
+                       String note) {
+        if (note != null && note.length() > MAX_NOTE_LENGTH) {
+            note = note.substring(0, MAX_NOTE_LENGTH);
+        }
+        InventoryLedgerEntry entry = new InventoryLedgerEntry(idBlockAllocator.nextId("inventory_ledger"),
+                productId, delta, reason, actorId, orderId, note, LocalDateTime.now());
+        
+        TransactionCallbacks.afterCommit(() -> append(entry));
+    }
+    
+    /**
+     * Retry batches that failed earlier, then write buffered entries to the database in batches
+     */
+    @Scheduled(fixedDelayString = "${inventory.ledger.flush-interval-ms:1000}")
+    public void flush() {
+        // Each failed batch gets one attempt per flush; batches failing now wait for the next one
+        for (int pending = failedBatches.size(); pending > 0; pending--) {
+            FailedBatch failed = failedBatches.poll();
+            if (failed == null) {
+                break;
+            }
+            write(failed.entries(), failed.attempts());
+        }
+        drain();
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        overflowWriter.shutdown();
+        try {
+            overflowWriter.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        // No later flush will retry what is left: dead-letter it
+        FailedBatch failed;
+        while ((failed = failedBatches.poll()) != null) {
+            deadLetter(failed.entries(), failed.attempts(), "dead_lettered");
+        }
+    }
+    
+    /**
+     * Most recent stock changes for a product, newest first. Entries still waiting in the buffer
+     * or for a retry are merged in; a batch being written at that moment may be missing.
+     */
+    public List<InventoryLedgerResponse> getHistory(Long productId, int limit) {
+        Map<Long, InventoryLedgerEntry> entries = new HashMap<>();
+        for (InventoryLedgerEntry entry : buffer) {
+            if (entry.getProductId().equals(productId)) {
+                entries.put(entry.getId(), entry);
+            }
+        }
+        for (FailedBatch failed : failedBatches) {
+            for (InventoryLedgerEntry entry : failed.entries()) {
+                if (entry.getProductId().equals(productId)) {
+                    entries.put(entry.getId(), entry);
+                }
+            }
+        }
+        for (InventoryLedgerEntry entry : ledgerRepository.findByProductIdOrderByCreatedAtDescIdDesc(
+                productId, PageRequest.of(0, limit))) {
+            entries.put(entry.getId(), entry);
+        }
+        return entries.values().stream()
+                .sorted(Comparator.comparing(InventoryLedgerEntry::getCreatedAt)
+                        .thenComparing(InventoryLedgerEntry::getId)
+                        .reversed())
+                .limit(limit)
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Buffer an entry from a committing thread; a full buffer hands its oldest batch to the
+     * ledger writer thread rather than writing here, where the connection of the transaction
+     * that just committed is still bound and would never commit the batch
+     */
+    private void append(InventoryLedgerEntry entry) {
+        while (!buffer.offer(entry)) {
+            List<InventoryLedgerEntry> batch = new ArrayList<>(batchSize);
+            if (buffer.drainTo(batch, batchSize) > 0) {
+                handOff(batch);
+            }
+        }
+    }
+    
+    private void handOff(List<InventoryLedgerEntry> batch) {
+        try {
+            overflowWriter.execute(() -> write(batch, 0));
+        } catch (RejectedExecutionException e) {
+            logger.error("Inventory ledger writer is {} batches behind, dead-lettering {} entries",
+                    maxPendingBatches, batch.size());
+            deadLetter(batch, 0, "overflowed");
+        }
+    }
+    
+    /**
+     * Write everything in the buffer; batches that fail are queued for the scheduled flush
+     */
+    private void drain() {
+        List<InventoryLedgerEntry> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            write(batch, 0);
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+    
+    private void write(List<InventoryLedgerEntry> batch, int previousAttempts) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, entry) -> {
+                ps.setLong(1, entry.getId());
+                ps.setLong(2, entry.getProductId());
+                ps.setInt(3, entry.getDelta());
+                ps.setString(4, entry.getReason().name());
+                ps.setObject(5, entry.getActorId(), Types.BIGINT);
+                ps.setObject(6, entry.getOrderId(), Types.BIGINT);
+                ps.setString(7, entry.getNote());
+                ps.setTimestamp(8, Timestamp.valueOf(entry.getCreatedAt()));
+            });
+        } catch (RuntimeException e) {
+            int attempts = previousAttempts + 1;
+            if (attempts >= maxAttempts) {
+                logger.error("Failed to write {} inventory ledger entries after {} attempts, dead-lettering them: {}",
+                        batch.size(), attempts, e.getMessage());
+                deadLetter(batch, attempts, "dead_lettered");
+                return;
+            }
+            logger.warn("Failed to write {} inventory ledger entries on attempt {}, retrying: {}",
+                    batch.size(), attempts, e.getMessage());
+            failedBatches.add(new FailedBatch(batch, attempts));
+            metrics.recordLedgerWriteFailure("retried", batch.size());
+        }
+    }
+    
+    /**
+     * Log entries that could not be written, one per line, and count them as lost
+     */
+    private void deadLetter(List<InventoryLedgerEntry> batch, int attempts, String outcome) {
+        for (InventoryLedgerEntry entry : batch) {
+            deadLetterLogger.error("product={} delta={} reason={} actor={} order={} createdAt={} attempts={} note={}",
+                    entry.getProductId(), entry.getDelta(), entry.getReason(), entry.getActorId(),
+                    entry.getOrderId(), entry.getCreatedAt(), attempts, entry.getNote());
+        }
+        metrics.recordLedgerWriteFailure(outcome, batch.size());
+    }
+    
+    /**
+     * Id of the authenticated user, or null for system changes (schedulers, batch writers)
+     */
+    private Long currentActorId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return user.getId();
+        }
+        return null;
+    }
+    
+    private InventoryLedgerResponse mapToResponse(InventoryLedgerEntry entry) {
+        return new InventoryLedgerResponse(entry.getId(), entry.getProductId(), entry.getDelta(),
+                entry.getReason(), entry.getActorId(), entry.getOrderId(), entry.getNote(), entry.getCreatedAt());
+    }
+}
@@ -3,17 +3,22 @@ package com.farm.marketplace.service;
 import com.farm.marketplace.dto.InventoryResponse;
 import com.farm.marketplace.dto.InventoryUpdateRequest;
 import com.farm.marketplace.model.Inventory;
+import com.farm.marketplace.model.InventoryChangeReason;
 import com.farm.marketplace.model.Product;
 import com.farm.marketplace.repository.InventoryRepository;
 import com.farm.marketplace.repository.ProductRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class InventoryService {
@@ -26,14 +31,37 @@ public class InventoryService {
     @Autowired
     private ProductRepository productRepository;
     
+    @Autowired
+    private ShardedInventoryService shardedInventoryService;
+    
+    @Autowired
+    private MarketplaceMetrics metrics;
+    
+    @Autowired
+    private InventoryLedgerService ledgerService;
+    
+    @Autowired
+    private EntityCacheEvictor cacheEvictor;
+    
+    @Autowired
+    private CatalogSnapshot catalogSnapshot;
+    
+    @Value("${inventory.decrement-mode:LOCKING}")
+    private InventoryDecrementMode decrementMode;
+    
+    /**
+     * Whether decreaseInventory checks stock itself in a single conditional update
+     */
+    public boolean usesAtomicDecrement() {
+        return decrementMode == InventoryDecrementMode.ATOMIC;
+    }
+    
     /**
      * Get all inventory items
      */
     @Transactional(readOnly = true)
     public List<InventoryResponse> getAllInventory() {
-        return inventoryRepository.findAll().stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return shardedInventoryService.applyShardTotals(inventoryRepository.findAllInventoryResponses());
     }
     
     /**
@@ -41,22 +69,7 @@ public class InventoryService {
      */
     @Transactional(readOnly = true)
     public List<InventoryResponse> getInventoryByFarmerId(Long farmerId) {
-        // Get all products for this farmer
-        List<Product> farmerProducts = productRepository.findByFarmerId(farmerId);
-        
-        // Get inventory for each product
-        return farmerProducts.stream()
-                .map(product -> {
-                    try {
-                        return inventoryRepository.findByProductId(product.getId())
-                                .map(this::mapToResponse)
-                                .orElse(null);
-                    } catch (Exception e) {
-                        return null;
-                    }
-                })
-                .filter(inventory -> inventory != null)
-                .collect(Collectors.toList());
+        return shardedInventoryService.applyShardTotals(inventoryRepository.findInventoryResponsesByFarmerId(farmerId));
     }
     
     /**
@@ -86,10 +99,31 @@ public class InventoryService {
         inventory.setReservedQuantity(0);
         
         Inventory saved = inventoryRepository.save(inventory);
-        logger.info("Initialized inventory for product ID: {} with quantity: {}", productId, initialQuantity);
+        ledgerService.record(productId, initialQuantity, InventoryChangeReason.INITIAL_STOCK, null, null);
         return saved;
     }
     
+    /**
+     * Initialize inventory for a batch of newly created products (bulk import)
+     */
+    @Transactional
+    public void initializeInventories(List<Product> products) {
+        List<Inventory> inventories = new ArrayList<>(products.size());
+        for (Product product : products) {
+            Inventory inventory = new Inventory();
+            inventory.setProductId(product.getId());
+            inventory.setAvailableQuantity(product.getQuantity());
+            inventory.setReservedQuantity(0);
+            inventories.add(inventory);
+        }
+        inventoryRepository.saveAll(inventories);
+        
+        for (Product product : products) {
+            ledgerService.record(product.getId(), product.getQuantity(), InventoryChangeReason.INITIAL_STOCK,
+                    null, "Bulk import");
+        }
+    }
+    
     /**
      * Check if sufficient stock is available
      */
@@ -97,7 +131,7 @@ public class InventoryService {
     public boolean checkAvailability(Long productId, Integer requestedQuantity) {
         Inventory inventory = inventoryRepository.findByProductId(productId)
                 .orElseThrow(() -> new RuntimeException("Inventory not found for product ID: " + productId));
-        return inventory.getAvailableQuantity() >= requestedQuantity;
+        return getAvailableQuantity(inventory) >= requestedQuantity;
     }
     
     /**
@@ -105,36 +139,155 @@ public class InventoryService {
      */
     @Transactional
     public void decreaseInventory(Long productId, Integer quantity) {
-        Inventory inventory = inventoryRepository.findByProductIdWithLock(productId)
+        decreaseInventory(productId, quantity, null);
+    }
+    
+    /**
+     * Decrease inventory for an order and record the change in the ledger
+     */
+    @Transactional
+    public void decreaseInventory(Long productId, Integer quantity, Long orderId) {
+        decrease(productId, quantity);
+        ledgerService.record(productId, -quantity, InventoryChangeReason.ORDER_PLACED, orderId, null);
+    }
+    
+    /**
+     * Decrease a product's inventory once for several orders (checkout) and record each order in the ledger
+     */
+    @Transactional
+    public void decreaseInventory(Long productId, Map<Long, Integer> quantitiesByOrderId) {
+        int total = 0;
+        for (int quantity : quantitiesByOrderId.values()) {
+            total += quantity;
+        }
+        decrease(productId, total);
+        quantitiesByOrderId.forEach((orderId, quantity) ->
+                ledgerService.record(productId, -quantity, InventoryChangeReason.ORDER_PLACED, orderId, null));
+    }
+    
+    private void decrease(Long productId, int quantity) {
+        if (shardedInventoryService.isSharded(productId) && shardedInventoryService.decrease(productId, quantity)) {
+            return;
+        }
+        if (usesAtomicDecrement()) {
+            decreaseInventoryAtomically(productId, quantity);
+        } else {
+            decreaseInventoryLocked(productId, quantity);
+        }
+    }
+    
+    /**
+     * Decrease inventory under the row lock: lock, check and save
+     */
+    private void decreaseInventoryLocked(Long productId, Integer quantity) {
+        Inventory inventory = lockInventory(productId, "decrease")
                 .orElseThrow(() -> new RuntimeException("Inventory not found for product ID: " + productId));
         
         int oldQuantity = inventory.getAvailableQuantity();
         
         if (oldQuantity < quantity) {
+            metrics.recordOutOfStock("decrement");
             throw new RuntimeException("Insufficient stock. Available: " + oldQuantity + ", Requested: " + quantity);
         }
         
         inventory.setAvailableQuantity(oldQuantity - quantity);
         inventoryRepository.save(inventory);
+    }
+    
+    /**
+     * Decrease inventory with one conditional UPDATE instead of lock, check and save
+     */
+    private void decreaseInventoryAtomically(Long productId, Integer quantity) {
+        int updated = inventoryRepository.decrementIfAvailable(productId, quantity, LocalDateTime.now());
         
-        logger.info("Decreased inventory for product ID: {} | Old: {} → New: {} | Change: -{}", 
-                    productId, oldQuantity, inventory.getAvailableQuantity(), quantity);
+        if (updated == 0) {
+            if (!inventoryRepository.existsByProductId(productId)) {
+                throw new RuntimeException("Inventory not found for product ID: " + productId);
+            }
+            metrics.recordOutOfStock("decrement");
+            throw new RuntimeException("Insufficient stock. Requested: " + quantity);
+        }
     }
     
     /**
-     * Increase inventory when order is cancelled
+     * Apply a flash-sale batch under one row lock: take back released stock, then grant
+     * requests in queue order while stock lasts. Writes inventory and product once.
      */
     @Transactional
-    public void increaseInventory(Long productId, Integer quantity) {
-        Inventory inventory = inventoryRepository.findByProductIdWithLock(productId)
+    public boolean[] applyStockBatch(Long productId, List<Integer> requestedQuantities, int releasedQuantity) {
+        boolean[] granted = shardedInventoryService.isSharded(productId)
+                ? shardedInventoryService.applyStockBatch(productId, requestedQuantities, releasedQuantity)
+                : null;
+        if (granted != null) {
+            int change = releasedQuantity;
+            for (int i = 0; i < granted.length; i++) {
+                if (granted[i]) {
+                    change -= requestedQuantities.get(i);
+                }
+            }
+            if (change != 0) {
+                adjustProductQuantity(productId, change, LocalDateTime.now());
+                ledgerService.record(productId, change, InventoryChangeReason.FLASH_SALE_BATCH, null, null);
+            }
+            return granted;
+        }
+        
+        Inventory inventory = lockInventory(productId, "batch")
                 .orElseThrow(() -> new RuntimeException("Inventory not found for product ID: " + productId));
         
         int oldQuantity = inventory.getAvailableQuantity();
-        inventory.setAvailableQuantity(oldQuantity + quantity);
-        inventoryRepository.save(inventory);
+        int available = oldQuantity + releasedQuantity;
+        granted = new boolean[requestedQuantities.size()];
+        for (int i = 0; i < requestedQuantities.size(); i++) {
+            int quantity = requestedQuantities.get(i);
+            if (quantity <= available) {
+                granted[i] = true;
+                available -= quantity;
+            }
+        }
         
-        logger.info("Increased inventory for product ID: {} | Old: {} → New: {} | Change: +{}", 
-                    productId, oldQuantity, inventory.getAvailableQuantity(), quantity);
+        int change = available - oldQuantity;
+        if (change != 0) {
+            inventory.setAvailableQuantity(available);
+            inventoryRepository.save(inventory);
+            adjustProductQuantity(productId, change, LocalDateTime.now());
+            ledgerService.record(productId, change, InventoryChangeReason.FLASH_SALE_BATCH, null,
+                    requestedQuantities.size() + " requests");
+        }
+        return granted;
+    }
+    
+    /**
+     * Move the product quantity by delta (kept in step with inventory for backward compatibility).
+     * Returns false if the product does not exist.
+     */
+    @Transactional
+    public boolean adjustProductQuantity(Long productId, int delta, LocalDateTime now) {
+        int updated = productRepository.adjustQuantity(productId, delta, now);
+        productQuantityChanged(productId);
+        return updated > 0;
+    }
+    
+    /**
+     * Increase inventory when order is cancelled
+     */
+    @Transactional
+    public void increaseInventory(Long productId, Integer quantity) {
+        increaseInventory(productId, quantity, null);
+    }
+    
+    /**
+     * Return stock of a cancelled order and record the change in the ledger
+     */
+    @Transactional
+    public void increaseInventory(Long productId, Integer quantity, Long orderId) {
+        if (!shardedInventoryService.isSharded(productId) || !shardedInventoryService.increase(productId, quantity)) {
+            Inventory inventory = lockInventory(productId, "increase")
+                    .orElseThrow(() -> new RuntimeException("Inventory not found for product ID: " + productId));
+            inventory.setAvailableQuantity(inventory.getAvailableQuantity() + quantity);
+            inventoryRepository.save(inventory);
+        }
+        ledgerService.record(productId, quantity, InventoryChangeReason.ORDER_CANCELLED, orderId, null);
     }
     
     /**
@@ -146,16 +299,21 @@ public class InventoryService {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
         
-        Inventory inventory = inventoryRepository.findByProductIdWithLock(productId)
+        Inventory inventory = lockInventory(productId, "update")
                 .orElseThrow(() -> new RuntimeException("Inventory not found for product ID: " + productId));
         
-        int oldQuantity = inventory.getAvailableQuantity();
+        int oldQuantity = getAvailableQuantity(inventory);
         inventory.setAvailableQuantity(request.getQuantity());
         Inventory updated = inventoryRepository.save(inventory);
+        if (shardedInventoryService.isSharded(productId)) {
+            shardedInventoryService.setAvailableQuantity(productId, request.getQuantity());
+        }
+        // Keep product quantity in step while the inventory row is still locked
+        productRepository.setQuantity(productId, request.getQuantity(), LocalDateTime.now());
+        productQuantityChanged(productId);
         
-        logger.info("Manual inventory update for product ID: {} by user ID: {} | Old: {} → New: {} | Reason: {}", 
-                    productId, userId, oldQuantity, request.getQuantity(), 
-                    request.getReason() != null ? request.getReason() : "Not specified");
+        ledgerService.record(productId, request.getQuantity() - oldQuantity, InventoryChangeReason.MANUAL_UPDATE,
+                userId, null, request.getReason());
         
         return mapToResponse(updated);
     }
@@ -165,23 +323,54 @@ public class InventoryService {
      */
     @Transactional
     public void syncInventoryWithProduct(Long productId) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
-        
-        Inventory inventory = inventoryRepository.findByProductId(productId)
+        // Lock inventory before reading the product, so an order committing in between
+        // cannot be overwritten with a stale product quantity
+        Inventory inventory = lockInventory(productId, "sync")
                 .orElse(null);
+        // Orders change sharded stock under the shard locks, not the inventory row: take those too
+        if (inventory != null && shardedInventoryService.isSharded(productId)) {
+            shardedInventoryService.lockShards(productId);
+        }
+        
+        Product product = productRepository.findByIdBypassingCache(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
         
         if (inventory == null) {
             // Create new inventory
             initializeInventory(productId, product.getQuantity());
         } else {
             // Update existing inventory
-            int oldQuantity = inventory.getAvailableQuantity();
+            int oldQuantity = getAvailableQuantity(inventory);
             inventory.setAvailableQuantity(product.getQuantity());
             inventoryRepository.save(inventory);
-            logger.info("Synced inventory for product ID: {} | Old: {} → New: {}", 
-                        productId, oldQuantity, product.getQuantity());
+            if (shardedInventoryService.isSharded(productId)) {
+                shardedInventoryService.setAvailableQuantity(productId, product.getQuantity());
+            }
+            if (product.getQuantity() != oldQuantity) {
+                ledgerService.record(productId, product.getQuantity() - oldQuantity, InventoryChangeReason.SYNC,
+                        null, null);
+            }
+        }
+    }
+    
+    /**
+     * Lock a product's inventory row, timing lock wait and hold
+     */
+    private Optional<Inventory> lockInventory(Long productId, String operation) {
+        return metrics.timeInventoryLock(operation, () -> inventoryRepository.findByProductIdWithLock(productId));
+    }
+    
+    /**
+     * Available stock of an inventory row, summing the shards when the product is sharded
+     */
+    private int getAvailableQuantity(Inventory inventory) {
+        if (shardedInventoryService.isSharded(inventory.getProductId())) {
+            Integer total = shardedInventoryService.getAvailableQuantity(inventory.getProductId());
+            if (total != null) {
+                return total;
+            }
         }
+        return inventory.getAvailableQuantity();
     }
     
     /**
@@ -191,15 +380,24 @@ public class InventoryService {
         Product product = productRepository.findById(inventory.getProductId())
                 .orElseThrow(() -> new RuntimeException("Product not found"));
         
+        int available = getAvailableQuantity(inventory);
         InventoryResponse response = new InventoryResponse();
         response.setId(inventory.getId());
         response.setProductId(inventory.getProductId());
         response.setProductName(product.getName());
-        response.setAvailableQuantity(inventory.getAvailableQuantity());
+        response.setAvailableQuantity(available);
         response.setReservedQuantity(inventory.getReservedQuantity());
-        response.setTotalQuantity(inventory.getAvailableQuantity() + inventory.getReservedQuantity());
+        response.setTotalQuantity(available + inventory.getReservedQuantity());
         response.setLastUpdated(inventory.getLastUpdated());
         response.setCreatedAt(inventory.getCreatedAt());
         return response;
     }
+    
+    /**
+     * Drop the cached product and mark it for the next catalog snapshot after a quantity write
+     */
+    private void productQuantityChanged(Long productId) {
+        cacheEvictor.evictProduct(productId);
+        catalogSnapshot.markChanged(productId);
+    }
 }
@@ -0,0 +1,34 @@
+package com.farm.marketplace.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically moves stock between shards so random-shard decrements keep finding stock
+ */
+@Component
+public class InventoryShardRebalancer {
+    
+    private static final Logger logger = LoggerFactory.getLogger(InventoryShardRebalancer.class);
+    
+    @Autowired
+    private ShardedInventoryService shardedInventoryService;
+    
+    @Scheduled(fixedDelayString = "${inventory.sharding.rebalance-interval-ms:30000}")
+    public void rebalance() {
+        if (!shardedInventoryService.isEnabled()) {
+            return;
+        }
+        
+        for (Long productId : shardedInventoryService.getShardedProductIds()) {
+            try {
+                shardedInventoryService.rebalance(productId);
+            } catch (RuntimeException e) {
+                logger.error("Failed to rebalance inventory shards for product ID: {} | {}", productId, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.farm.marketplace.service;
+
+import com.farm.marketplace.config.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Application meters for the inventory engine, deliveries, the outbox, JWT validation and
+ * load shedding.
+ * HTTP, HikariCP and Hibernate meters come from Spring Boot's auto-configuration.
+ */
+@Component
+public class MarketplaceMetrics {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Take an inventory row lock, timing the wait for it and, once acquired,
+     * how long it is held (until the surrounding transaction completes)
+     */
+    public <T> T timeInventoryLock(String operation, Supplier<T> acquire) {
+        Timer.Sample wait = Timer.start(meterRegistry);
+        T result = acquire.get();
+        wait.stop(lockTimer("inventory.lock.wait", "Time spent waiting for an inventory row lock", operation));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            Timer.Sample hold = Timer.start(meterRegistry);
+            TransactionCallbacks.afterCompletion(() ->
+                    hold.stop(lockTimer("inventory.lock.hold", "Time an inventory row lock is held", operation)));
+        }
+        return result;
+    }
+
+    /**
+     * Count an order line rejected for lack of stock
+     */
+    public void recordOutOfStock(String source) {
+        Counter.builder("inventory.out.of.stock")
+                .description("Order lines rejected for insufficient stock")
+                .tag("source", source)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Count a delivery created automatically when an order shipped
+     */
+    public void recordAutoCreatedDelivery() {
+        Counter.builder("deliveries.auto.created")
+                .description("Deliveries created automatically for shipped orders")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Count an outbox event outcome (processed, retried or failed)
+     */
+    public void recordOutboxEvent(String type, String outcome) {
+        Counter.builder("outbox.events")
+                .description("Outbox events handled by the background worker")
+                .tag("type", type)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Count inventory ledger entries whose batch failed to write (retried or dead-lettered) or
+     * was dead-lettered because the ledger writer fell behind (overflowed)
+     */
+    public void recordLedgerWriteFailure(String outcome, int entries) {
+        Counter.builder("inventory.ledger.write.failures")
+                .description("Inventory ledger entries in batches that failed to write")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment(entries);
+    }
+
+    /**
+     * Record how long verifying a bearer token took
+     */
+    public void recordJwtValidation(long nanos, boolean valid) {
+        Timer.builder("jwt.validation")
+                .description("Bearer token parsing and signature verification")
+                .tag("outcome", valid ? "valid" : "invalid")
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Expose a concurrency limiter's current limit and in-flight requests
+     */
+    public void registerConcurrencyLimiter(AdaptiveConcurrencyLimiter limiter) {
+        Gauge.builder("http.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .tag("group", limiter.getName())
+                .register(meterRegistry);
+        Gauge.builder("http.concurrency.in.flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Requests currently holding a concurrency slot")
+                .tag("group", limiter.getName())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Count a request refused with 503 because its endpoint group was at its limit
+     */
+    public void recordRequestShed(String group) {
+        Counter.builder("http.concurrency.shed")
+                .description("Requests rejected by the adaptive concurrency limiter")
+                .tag("group", group)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private Timer lockTimer(String name, String description, String operation) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
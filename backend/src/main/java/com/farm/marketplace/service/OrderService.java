@@ -1,21 +1,37 @@
 package com.farm.marketplace.service;
 
+import com.farm.marketplace.dto.CheckoutRequest;
 import com.farm.marketplace.dto.OrderRequest;
 import com.farm.marketplace.dto.OrderResponse;
 import com.farm.marketplace.dto.OrderStatusUpdateRequest;
 import com.farm.marketplace.exception.ResourceNotFoundException;
 import com.farm.marketplace.exception.UnauthorizedException;
 import com.farm.marketplace.model.*;
+import com.farm.marketplace.repository.IdBlockAllocator;
 import com.farm.marketplace.repository.OrderRepository;
 import com.farm.marketplace.repository.ProductRepository;
 import com.farm.marketplace.repository.UserRepository;
+import com.farm.marketplace.security.AuthenticatedUser;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,11 +50,29 @@ public class OrderService {
     private InventoryService inventoryService;
     
     @Autowired
-    private DeliveryService deliveryService;
+    private OutboxService outboxService;
+    
+    @Autowired
+    private FlashSaleService flashSaleService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private IdBlockAllocator idBlockAllocator;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private MarketplaceMetrics metrics;
 
-    @Transactional
+    /**
+     * Place one order. Not transactional itself: a hot product's stock is reserved through the
+     * flash-sale writer before the order transaction opens, so no connection is held while waiting.
+     */
     public OrderResponse createOrder(OrderRequest request) {
-        User buyer = getCurrentUser();
+        AuthenticatedUser buyer = getCurrentUser();
         
         // Only buyers can place orders
         if (buyer.getRole() != Role.BUYER) {
@@ -49,76 +83,107 @@ public class OrderService {
         Product product = productRepository.findById(request.getProductId())
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + request.getProductId()));
 
-        // Check inventory availability
-        if (!inventoryService.checkAvailability(product.getId(), request.getQuantity())) {
-            throw new RuntimeException("Insufficient stock. Please check product availability.");
+        if (!flashSaleService.isHot(product.getId())) {
+            return transactionTemplate.execute(status -> saveOrder(buyer, product, request.getQuantity(), true));
         }
 
-        // Calculate total price
-        Double totalPrice = product.getPrice() * request.getQuantity();
+        // Hot products take stock through the flash-sale batch writer instead of the row lock
+        if (!flashSaleService.reserve(product.getId(), request.getQuantity())) {
+            metrics.recordOutOfStock("flash_sale");
+            throw new RuntimeException("Sold out. Please check product availability.");
+        }
+        try {
+            return transactionTemplate.execute(status -> saveOrder(buyer, product, request.getQuantity(), false));
+        } catch (RuntimeException e) {
+            // The order was not saved: hand the reserved stock back
+            flashSaleService.release(product.getId(), request.getQuantity());
+            throw e;
+        }
+    }
 
-        // Create order
-        Order order = new Order();
-        order.setProductId(product.getId());
-        order.setBuyerId(buyer.getId());
-        order.setQuantity(request.getQuantity());
-        order.setTotalPrice(totalPrice);
-        order.setStatus(OrderStatus.PENDING);
+    /**
+     * Place every line of a basket in one transaction: inventory is locked in ascending
+     * product id order (so concurrent baskets cannot deadlock), all orders are inserted in
+     * one JDBC batch, and any shortage rolls back the whole basket.
+     */
+    @Transactional
+    public List<OrderResponse> checkout(CheckoutRequest request) {
+        AuthenticatedUser buyer = getCurrentUser();
+        
+        // Only buyers can place orders
+        if (buyer.getRole() != Role.BUYER) {
+            throw new UnauthorizedException("Only buyers can place orders");
+        }
 
-        Order savedOrder = orderRepository.save(order);
+        List<OrderRequest> items = request.getItems();
+        Set<Long> productIds = items.stream().map(OrderRequest::getProductId).collect(Collectors.toSet());
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        for (Long productId : productIds) {
+            if (!products.containsKey(productId)) {
+                throw new ResourceNotFoundException("Product not found with id: " + productId);
+            }
+        }
 
-        // Decrease inventory (automatic inventory management)
-        inventoryService.decreaseInventory(product.getId(), request.getQuantity());
-        
-        // Also update product quantity for backward compatibility
-        product.setQuantity(product.getQuantity() - request.getQuantity());
-        productRepository.save(product);
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> orderIds = insertOrders(buyer.getId(), items, products, now);
+
+        // Decrease inventory (automatic inventory management) once per product, in product id order
+        // to fix the lock order; several lines of one product would otherwise lock its stock twice.
+        // A shortage rolls back the inserted orders too.
+        Map<Long, Map<Long, Integer>> quantitiesByProduct = new TreeMap<>();
+        for (int line = 0; line < items.size(); line++) {
+            OrderRequest item = items.get(line);
+            quantitiesByProduct.computeIfAbsent(item.getProductId(), id -> new LinkedHashMap<>())
+                    .put(orderIds.get(line), item.getQuantity());
+        }
+        quantitiesByProduct.forEach((productId, quantitiesByOrderId) -> {
+            inventoryService.decreaseInventory(productId, quantitiesByOrderId);
+            
+            // Also update product quantity for backward compatibility
+            int total = quantitiesByOrderId.values().stream().mapToInt(Integer::intValue).sum();
+            inventoryService.adjustProductQuantity(productId, -total, now);
+        });
 
-        return mapToResponse(savedOrder);
+        return orderRepository.findOrderResponsesByIds(orderIds);
     }
 
     public List<OrderResponse> getAllOrders() {
-        User user = getCurrentUser();
+        AuthenticatedUser user = getCurrentUser();
         
         // Only admins can view all orders
         if (user.getRole() != Role.ADMIN) {
             throw new UnauthorizedException("Only admins can view all orders");
         }
 
-        return orderRepository.findAll().stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return orderRepository.findAllOrderResponses();
     }
 
     public List<OrderResponse> getOrdersByBuyerId(Long buyerId) {
-        User currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = getCurrentUser();
         
         // Buyers can only see their own orders, admins can see any
         if (currentUser.getRole() == Role.BUYER && !currentUser.getId().equals(buyerId)) {
             throw new UnauthorizedException("You can only view your own orders");
         }
 
-        return orderRepository.findByBuyerId(buyerId).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return orderRepository.findOrderResponsesByBuyerId(buyerId);
     }
 
     public List<OrderResponse> getOrdersByFarmerId(Long farmerId) {
-        User currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = getCurrentUser();
         
         // Farmers can only see orders for their products, admins can see any
         if (currentUser.getRole() == Role.FARMER && !currentUser.getId().equals(farmerId)) {
             throw new UnauthorizedException("You can only view orders for your own products");
         }
 
-        return orderRepository.findOrdersByFarmerId(farmerId).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return orderRepository.findOrderResponsesByFarmerId(farmerId);
     }
 
     @Transactional
     public OrderResponse updateOrderStatus(Long orderId, OrderStatusUpdateRequest request) {
-        User currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = getCurrentUser();
         
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
@@ -143,14 +208,10 @@ public class OrderService {
         order.setStatus(request.getStatus());
         Order updatedOrder = orderRepository.save(order);
         
-        // Auto-create delivery when order status changes to SHIPPED
+        // Auto-create delivery when order status changes to SHIPPED: recorded in this transaction,
+        // created by the outbox worker once it commits
         if (request.getStatus() == OrderStatus.SHIPPED && oldStatus != OrderStatus.SHIPPED) {
-            try {
-                deliveryService.autoCreateDeliveryForShippedOrder(orderId);
-            } catch (Exception e) {
-                // Log error but don't fail the order update
-                System.err.println("Failed to create delivery for order " + orderId + ": " + e.getMessage());
-            }
+            outboxService.recordOrderShipped(orderId);
         }
 
         return mapToResponse(updatedOrder);
@@ -158,7 +219,7 @@ public class OrderService {
 
     @Transactional
     public void cancelOrder(Long orderId) {
-        User user = getCurrentUser();
+        AuthenticatedUser user = getCurrentUser();
         
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
@@ -176,24 +237,87 @@ public class OrderService {
         }
 
         // Restore inventory (automatic inventory management)
-        inventoryService.increaseInventory(order.getProductId(), order.getQuantity());
+        inventoryService.increaseInventory(order.getProductId(), order.getQuantity(), order.getId());
         
         // Also restore product quantity for backward compatibility
-        Product product = productRepository.findById(order.getProductId())
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
-        product.setQuantity(product.getQuantity() + order.getQuantity());
-        productRepository.save(product);
+        if (!inventoryService.adjustProductQuantity(order.getProductId(), order.getQuantity(), LocalDateTime.now())) {
+            throw new ResourceNotFoundException("Product not found");
+        }
 
         // Update order status to cancelled
         order.setStatus(OrderStatus.CANCELLED);
         orderRepository.save(order);
     }
 
-    private User getCurrentUser() {
+    /**
+     * Save a PENDING order, taking its stock from inventory unless it was already reserved
+     */
+    private OrderResponse saveOrder(AuthenticatedUser buyer, Product product, int quantity, boolean decreaseStock) {
+        // Calculate total price
+        Double totalPrice = product.getPrice() * quantity;
+
+        // Create order
+        Order order = new Order();
+        order.setProductId(product.getId());
+        order.setBuyerId(buyer.getId());
+        order.setQuantity(quantity);
+        order.setTotalPrice(totalPrice);
+        order.setStatus(OrderStatus.PENDING);
+
+        Order savedOrder = orderRepository.save(order);
+
+        if (decreaseStock) {
+            // Decrease inventory (automatic inventory management). The decrement checks stock under
+            // the row lock or in its conditional UPDATE; an unlocked pre-check here would leave a stale
+            // Inventory in the persistence context for the locking read to hand back.
+            inventoryService.decreaseInventory(product.getId(), quantity, savedOrder.getId());
+            
+            // Also update product quantity for backward compatibility
+            inventoryService.adjustProductQuantity(product.getId(), -quantity, LocalDateTime.now());
+        }
+
+        return mapToResponse(savedOrder);
+    }
+
+    /**
+     * Insert one PENDING order per basket line in a single JDBC batch and return the new ids
+     */
+    private List<Long> insertOrders(Long buyerId, List<OrderRequest> items, Map<Long, Product> products,
+                                    LocalDateTime now) {
+        String sql = "INSERT INTO orders (id, product_id, buyer_id, quantity, total_price, status, created_at, updated_at) " +
+                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        Timestamp timestamp = Timestamp.valueOf(now);
+        List<Long> orderIds = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            orderIds.add(idBlockAllocator.nextId("orders"));
+        }
+
+        jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                OrderRequest item = items.get(i);
+                Product product = products.get(item.getProductId());
+                ps.setLong(1, orderIds.get(i));
+                ps.setLong(2, item.getProductId());
+                ps.setLong(3, buyerId);
+                ps.setInt(4, item.getQuantity());
+                ps.setDouble(5, product.getPrice() * item.getQuantity());
+                ps.setString(6, OrderStatus.PENDING.name());
+                ps.setTimestamp(7, timestamp);
+                ps.setTimestamp(8, timestamp);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return items.size();
+            }
+        });
+        return orderIds;
+    }
+
+    private AuthenticatedUser getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return (AuthenticatedUser) authentication.getPrincipal();
     }
 
     private OrderResponse mapToResponse(Order order) {
@@ -0,0 +1,163 @@
+package com.farm.marketplace.service;
+
+import com.farm.marketplace.model.Order;
+import com.farm.marketplace.model.OrderStatus;
+import com.farm.marketplace.model.OutboxEvent;
+import com.farm.marketplace.model.OutboxEventStatus;
+import com.farm.marketplace.model.OutboxEventType;
+import com.farm.marketplace.repository.OrderRepository;
+import com.farm.marketplace.repository.OutboxEventRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Transactional outbox. Callers record events inside their own transaction; a scheduled
+ * worker claims due events in batches (SELECT ... FOR UPDATE SKIP LOCKED, so several
+ * instances can drain side by side) and handles each one in its own transaction. Failures
+ * are retried with exponential backoff and marked FAILED after the last attempt. Handlers
+ * must be idempotent: an event whose handler committed may still be redelivered if marking
+ * it processed fails.
+ */
+@Service
+public class OutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxService.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private DeliveryService deliveryService;
+
+    @Autowired
+    private MarketplaceMetrics metrics;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${outbox.initial-backoff-ms:1000}")
+    private long initialBackoffMs;
+
+    @Value("${outbox.max-backoff-ms:300000}")
+    private long maxBackoffMs;
+
+    private TransactionTemplate batchTransaction;
+    private TransactionTemplate handlerTransaction;
+
+    @PostConstruct
+    void init() {
+        batchTransaction = new TransactionTemplate(transactionManager);
+        handlerTransaction = new TransactionTemplate(transactionManager);
+        handlerTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Record that an order shipped; must run inside the transaction that changed its status
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordOrderShipped(Long orderId) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventType(OutboxEventType.ORDER_SHIPPED);
+        event.setAggregateId(orderId);
+        event.setStatus(OutboxEventStatus.PENDING);
+        event.setAttempts(0);
+        event.setNextAttemptAt(LocalDateTime.now());
+        outboxEventRepository.save(event);
+    }
+
+    /**
+     * Drain due events batch by batch until none are left
+     */
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:500}")
+    public void processDueEvents() {
+        Integer claimed;
+        do {
+            claimed = batchTransaction.execute(status -> processBatch());
+        } while (claimed != null && claimed == batchSize);
+    }
+
+    /**
+     * Claim one batch and handle each event; the claim locks are held until the batch commits
+     */
+    private int processBatch() {
+        List<OutboxEvent> events = outboxEventRepository.findDueForUpdate(
+                OutboxEventStatus.PENDING, LocalDateTime.now(), PageRequest.of(0, batchSize));
+
+        for (OutboxEvent event : events) {
+            event.setAttempts(event.getAttempts() + 1);
+            try {
+                handlerTransaction.executeWithoutResult(status -> handle(event));
+                event.setStatus(OutboxEventStatus.PROCESSED);
+                event.setProcessedAt(LocalDateTime.now());
+                event.setLastError(null);
+                metrics.recordOutboxEvent(event.getEventType().name(), "processed");
+            } catch (RuntimeException e) {
+                fail(event, e);
+            }
+        }
+        return events.size();
+    }
+
+    private void handle(OutboxEvent event) {
+        switch (event.getEventType()) {
+            case ORDER_SHIPPED -> createDeliveryForShippedOrder(event.getAggregateId());
+        }
+    }
+
+    /**
+     * Idempotent: autoCreateDeliveryForShippedOrder returns the existing delivery if there is one
+     */
+    private void createDeliveryForShippedOrder(Long orderId) {
+        Order order = orderRepository.findById(orderId).orElse(null);
+        if (order == null || (order.getStatus() != OrderStatus.SHIPPED && order.getStatus() != OrderStatus.DELIVERED)) {
+            // Deleted, or moved back / cancelled before we got to it: nothing to deliver
+            logger.info("Skipping delivery for order {}: no longer shipped", orderId);
+            return;
+        }
+        deliveryService.autoCreateDeliveryForShippedOrder(orderId);
+    }
+
+    private void fail(OutboxEvent event, RuntimeException e) {
+        String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        event.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+
+        if (event.getAttempts() >= maxAttempts) {
+            event.setStatus(OutboxEventStatus.FAILED);
+            metrics.recordOutboxEvent(event.getEventType().name(), "failed");
+            logger.error("Giving up on outbox event {} ({} for {}) after {} attempts: {}",
+                    event.getId(), event.getEventType(), event.getAggregateId(), event.getAttempts(), error);
+            return;
+        }
+
+        long backoffMs = Math.min(maxBackoffMs, initialBackoffMs << Math.min(event.getAttempts() - 1, 30));
+        event.setNextAttemptAt(LocalDateTime.now().plusNanos(backoffMs * 1_000_000));
+        metrics.recordOutboxEvent(event.getEventType().name(), "retried");
+        logger.warn("Outbox event {} ({} for {}) failed on attempt {}, retrying in {} ms: {}",
+                event.getId(), event.getEventType(), event.getAggregateId(), event.getAttempts(), backoffMs, error);
+    }
+}
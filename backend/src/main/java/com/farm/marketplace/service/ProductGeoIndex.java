@@ -0,0 +1,297 @@
+package com.farm.marketplace.service;
+
+import com.farm.marketplace.model.Product;
+import com.farm.marketplace.repository.ProductRepository;
+import com.farm.marketplace.repository.ProductRepository.ProductCoordinates;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory grid index over product coordinates. The globe is cut into fixed-size
+ * latitude/longitude cells; a query only visits the cells overlapping the bounding box
+ * of its search circle and checks great-circle distance for the products inside them.
+ * Built at startup and kept current by ProductService writes; writes committed while a
+ * rebuild is loading are recorded and replayed on top of the loaded points.
+ */
+@Component
+public class ProductGeoIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductGeoIndex.class);
+
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+    public static final double MAX_DISTANCE_KM = Math.PI * EARTH_RADIUS_KM;   // Half the circumference
+    private static final int BUILD_PAGE_SIZE = 5000;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Value("${geo.index.cell-size-degrees:0.1}")
+    private double cellSize;
+
+    private int latitudeCells;
+    private int longitudeCells;
+
+    private final Map<Long, Point> points = new HashMap<>();
+    private final Map<Long, Set<Long>> cells = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Changes committed while a rebuild is loading, by product id (null point = dropped); guarded by lock
+    private Map<Long, Point> changedDuringRebuild;
+
+    /**
+     * A product and its distance from the query point
+     */
+    public record Match(Long productId, double distanceKm) {
+    }
+
+    private record Point(double latitude, double longitude, long cell) {
+    }
+
+    @PostConstruct
+    void init() {
+        latitudeCells = (int) Math.ceil(180 / cellSize);
+        longitudeCells = (int) Math.ceil(360 / cellSize);
+    }
+
+    /**
+     * Load every product with coordinates once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<Long, Point> loaded = new HashMap<>();
+        long afterId = 0;
+        List<ProductCoordinates> page;
+        do {
+            page = productRepository.findCoordinatesAfter(afterId, PageRequest.of(0, BUILD_PAGE_SIZE));
+            for (ProductCoordinates coordinates : page) {
+                loaded.put(coordinates.getId(), point(coordinates.getLatitude(), coordinates.getLongitude()));
+                afterId = coordinates.getId();
+            }
+        } while (page.size() == BUILD_PAGE_SIZE);
+
+        int replayed;
+        lock.writeLock().lock();
+        try {
+            points.clear();
+            cells.clear();
+            loaded.forEach(this::add);
+            // The load may have read some products before these changes committed
+            replayed = changedDuringRebuild.size();
+            changedDuringRebuild.forEach(this::apply);
+            changedDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Product geo index built with {} products in {} cells ({} changes replayed)",
+                loaded.size(), cells.size(), replayed);
+    }
+
+    /**
+     * Add, move or drop (when it has no coordinates) a product; inside a transaction this happens after commit
+     */
+    public void index(Product product) {
+        indexAll(List.of(product));
+    }
+
+    /**
+     * Add, move or drop several products at once (bulk import)
+     */
+    public void indexAll(List<Product> products) {
+        Map<Long, Point> updates = new HashMap<>();
+        for (Product product : products) {
+            boolean located = product.getLatitude() != null && product.getLongitude() != null;
+            updates.put(product.getId(), located ? point(product.getLatitude(), product.getLongitude()) : null);
+        }
+        TransactionCallbacks.afterCommit(() -> change(updates));
+    }
+
+    /**
+     * Drop a product; inside a transaction this happens after commit
+     */
+    public void delete(Long productId) {
+        Map<Long, Point> dropped = new HashMap<>();
+        dropped.put(productId, null);
+        TransactionCallbacks.afterCommit(() -> change(dropped));
+    }
+
+    /**
+     * Apply committed changes (null point = dropped), recording them if a rebuild is loading
+     */
+    private void change(Map<Long, Point> changes) {
+        lock.writeLock().lock();
+        try {
+            changes.forEach(this::apply);
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.putAll(changes);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Products within radiusKm, nearest first, at most limit of them
+     */
+    public List<Match> withinRadius(double latitude, double longitude, double radiusKm, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Match> matches = scan(latitude, longitude, radiusKm);
+            matches.sort(BY_DISTANCE);
+            return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The k products nearest to a point. Searches a growing radius until it holds k products:
+     * anything outside that circle is farther than everything inside it, so the answer is exact.
+     */
+    public List<Match> nearest(double latitude, double longitude, int k) {
+        lock.readLock().lock();
+        try {
+            double radiusKm = cellSize * Math.PI / 180 * EARTH_RADIUS_KM;
+            List<Match> matches = scan(latitude, longitude, radiusKm);
+            while (matches.size() < k && radiusKm < MAX_DISTANCE_KM && matches.size() < points.size()) {
+                radiusKm = Math.min(radiusKm * 2, MAX_DISTANCE_KM);
+                matches = scan(latitude, longitude, radiusKm);
+            }
+            matches.sort(BY_DISTANCE);
+            return matches.size() > k ? new ArrayList<>(matches.subList(0, k)) : matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static final Comparator<Match> BY_DISTANCE =
+            Comparator.comparingDouble(Match::distanceKm).thenComparing(Match::productId);
+
+    /**
+     * Every indexed product within radiusKm (unsorted). Callers hold the read lock.
+     */
+    private List<Match> scan(double latitude, double longitude, double radiusKm) {
+        List<Match> matches = new ArrayList<>();
+        double angularRadius = radiusKm / EARTH_RADIUS_KM;
+        double latitudeDelta = Math.toDegrees(angularRadius);
+        double minLatitude = latitude - latitudeDelta;
+        double maxLatitude = latitude + latitudeDelta;
+
+        // Longitude span of the circle's bounding box; a circle over a pole spans every longitude
+        boolean allLongitudes = minLatitude <= -90 || maxLatitude >= 90;
+        double longitudeDelta = 180;
+        if (!allLongitudes) {
+            double ratio = Math.sin(angularRadius) / Math.cos(Math.toRadians(latitude));
+            longitudeDelta = ratio >= 1 ? 180 : Math.toDegrees(Math.asin(ratio));
+        }
+
+        int firstRow = latitudeCell(Math.max(minLatitude, -90));
+        int lastRow = latitudeCell(Math.min(maxLatitude, 90));
+        int firstColumn = (int) Math.floor((longitude - longitudeDelta + 180) / cellSize);
+        int lastColumn = (int) Math.floor((longitude + longitudeDelta + 180) / cellSize);
+        if (longitudeDelta >= 180 || lastColumn - firstColumn + 1 >= longitudeCells) {
+            firstColumn = 0;
+            lastColumn = longitudeCells - 1;
+        }
+
+        long cellsInBox = (long) (lastRow - firstRow + 1) * (lastColumn - firstColumn + 1);
+        if (cellsInBox > cells.size()) {
+            // Sparse index: walking the occupied cells is cheaper than walking the box
+            for (Set<Long> productIds : cells.values()) {
+                collect(productIds, latitude, longitude, radiusKm, matches);
+            }
+            return matches;
+        }
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                Set<Long> productIds = cells.get(cellKey(row, Math.floorMod(column, longitudeCells)));
+                if (productIds != null) {
+                    collect(productIds, latitude, longitude, radiusKm, matches);
+                }
+            }
+        }
+        return matches;
+    }
+
+    private void collect(Set<Long> productIds, double latitude, double longitude, double radiusKm,
+                         List<Match> matches) {
+        for (Long productId : productIds) {
+            Point point = points.get(productId);
+            double distance = distanceKm(latitude, longitude, point.latitude(), point.longitude());
+            if (distance <= radiusKm) {
+                matches.add(new Match(productId, distance));
+            }
+        }
+    }
+
+    /**
+     * Great-circle (haversine) distance in kilometres
+     */
+    public static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double dLatitude = Math.toRadians(latitude2 - latitude1);
+        double dLongitude = Math.toRadians(longitude2 - longitude1);
+        double a = Math.sin(dLatitude / 2) * Math.sin(dLatitude / 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * Math.sin(dLongitude / 2) * Math.sin(dLongitude / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private Point point(double latitude, double longitude) {
+        int row = latitudeCell(latitude);
+        int column = Math.floorMod((int) Math.floor((longitude + 180) / cellSize), longitudeCells);
+        return new Point(latitude, longitude, cellKey(row, column));
+    }
+
+    private int latitudeCell(double latitude) {
+        return Math.min(latitudeCells - 1, Math.max(0, (int) Math.floor((latitude + 90) / cellSize)));
+    }
+
+    private long cellKey(int row, int column) {
+        return (long) row * longitudeCells + column;
+    }
+
+    // Callers hold the write lock
+    private void apply(Long productId, Point point) {
+        remove(productId);
+        if (point != null) {
+            add(productId, point);
+        }
+    }
+
+    // Callers hold the write lock
+    private void add(Long productId, Point point) {
+        points.put(productId, point);
+        cells.computeIfAbsent(point.cell(), key -> new HashSet<>()).add(productId);
+    }
+
+    // Callers hold the write lock
+    private void remove(Long productId) {
+        Point point = points.remove(productId);
+        if (point == null) {
+            return;
+        }
+        Set<Long> productIds = cells.get(point.cell());
+        productIds.remove(productId);
+        if (productIds.isEmpty()) {
+            cells.remove(point.cell());
+        }
+    }
+}
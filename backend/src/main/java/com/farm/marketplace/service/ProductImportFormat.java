@@ -0,0 +1,20 @@
+package com.farm.marketplace.service;
+
+/**
+ * Body formats accepted by the bulk product import
+ */
+public enum ProductImportFormat {
+    CSV,      // Header row naming the columns, then one product per line
+    NDJSON;   // One ProductRequest JSON object per line
+    
+    public static ProductImportFormat fromContentType(String contentType) {
+        String type = contentType == null ? "" : contentType.toLowerCase();
+        if (type.contains("csv")) {
+            return CSV;
+        }
+        if (type.contains("ndjson")) {
+            return NDJSON;
+        }
+        throw new RuntimeException("Unsupported import format: " + contentType + " (use text/csv or application/x-ndjson)");
+    }
+}
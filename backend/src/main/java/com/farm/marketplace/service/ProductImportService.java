@@ -0,0 +1,330 @@
+package com.farm.marketplace.service;
+
+import com.farm.marketplace.dto.ProductImportError;
+import com.farm.marketplace.dto.ProductImportResponse;
+import com.farm.marketplace.dto.ProductRequest;
+import com.farm.marketplace.exception.UnauthorizedException;
+import com.farm.marketplace.model.Product;
+import com.farm.marketplace.model.Role;
+import com.farm.marketplace.repository.ProductRepository;
+import com.farm.marketplace.security.AuthenticatedUser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Streaming bulk product import. Rows are parsed as they arrive, validated against the
+ * ProductRequest constraints and written in fixed-size batches (products plus inventory rows,
+ * one transaction per batch), so memory stays flat whatever the file size.
+ */
+@Service
+public class ProductImportService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private InventoryService inventoryService;
+    
+    @Autowired
+    private ProductSearchIndex searchIndex;
+    
+    @Autowired
+    private ProductGeoIndex geoIndex;
+    
+    @Autowired
+    private CatalogSnapshot catalogSnapshot;
+    
+    @Autowired
+    private Validator validator;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Value("${catalog.import.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${catalog.import.max-errors:1000}")
+    private int maxErrors;
+    
+    /**
+     * Import products for the current farmer. Invalid rows are skipped and reported;
+     * valid rows are saved even when others fail.
+     */
+    public ProductImportResponse importProducts(InputStream body, ProductImportFormat format) throws IOException {
+        AuthenticatedUser farmer = getCurrentUser();
+        
+        // Check if user is a farmer
+        if (farmer.getRole() != Role.FARMER) {
+            throw new UnauthorizedException("Only farmers can import products");
+        }
+        
+        ImportResult result = new ImportResult();
+        List<PendingRow> batch = new ArrayList<>(batchSize);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        if (format == ProductImportFormat.CSV) {
+            readCsv(reader, farmer.getId(), batch, result);
+        } else {
+            readNdjson(reader, farmer.getId(), batch, result);
+        }
+        
+        if (!batch.isEmpty()) {
+            writeBatch(batch, result);
+        }
+        
+        logger.info("Product import by farmer ID: {} | Imported: {} | Failed: {}",
+                    farmer.getId(), result.imported, result.failed);
+        return new ProductImportResponse(result.imported, result.failed, result.errors, result.errorsTruncated);
+    }
+    
+    /**
+     * CSV: a header record, then one product per record; quoted fields may span lines,
+     * and rows are reported by the line their record starts on
+     */
+    private void readCsv(BufferedReader reader, Long farmerId, List<PendingRow> batch, ImportResult result)
+            throws IOException {
+        CsvRecordReader records = new CsvRecordReader(reader);
+        CsvColumns columns = null;
+        while (true) {
+            List<String> fields;
+            try {
+                fields = records.next();
+            } catch (IllegalArgumentException e) {
+                // An unbalanced quote swallowed the rest of the file: nothing more can be read
+                result.fail(records.getRecordLine(), e.getMessage());
+                return;
+            }
+            if (fields == null) {
+                return;
+            }
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+            if (columns == null) {
+                columns = CsvColumns.fromHeader(fields);
+                continue;
+            }
+            
+            long row = records.getRecordLine();
+            try {
+                accept(row, columns.parse(fields), farmerId, batch, result);
+            } catch (IllegalArgumentException e) {
+                result.fail(row, e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * NDJSON: one product object per line
+     */
+    private void readNdjson(BufferedReader reader, Long farmerId, List<PendingRow> batch, ImportResult result)
+            throws IOException {
+        String line;
+        long row = 0;
+        while ((line = reader.readLine()) != null) {
+            row++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                accept(row, objectMapper.readValue(line, ProductRequest.class), farmerId, batch, result);
+            } catch (JsonProcessingException e) {
+                result.fail(row, "Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+    
+    /**
+     * Validate a parsed row and queue it, writing the batch once it is full
+     */
+    private void accept(long row, ProductRequest request, Long farmerId, List<PendingRow> batch, ImportResult result) {
+        Set<ConstraintViolation<ProductRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            result.fail(row, violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+            return;
+        }
+        
+        batch.add(new PendingRow(row, toProduct(request, farmerId)));
+        if (batch.size() >= batchSize) {
+            writeBatch(batch, result);
+            batch.clear();
+        }
+    }
+    
+    /**
+     * Save one batch of products and their inventory rows in a single transaction, each table
+     * in one JDBC batch (ids come from IdBlockAllocator, so Hibernate can batch the inserts).
+     * Any failure rolls back just this batch and is reported against each of its rows.
+     */
+    private void writeBatch(List<PendingRow> batch, ImportResult result) {
+        List<Product> products = batch.stream().map(PendingRow::product).collect(Collectors.toList());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // One JDBC batch per table for the whole import batch
+                Session session = entityManager.unwrap(Session.class);
+                session.setJdbcBatchSize(batchSize);
+                try {
+                    productRepository.saveAll(products);
+                    inventoryService.initializeInventories(products);
+                    entityManager.flush();
+                } finally {
+                    session.setJdbcBatchSize(null);
+                }
+                // The request's persistence context outlives the batch (open-in-view): let the rows go
+                entityManager.clear();
+                searchIndex.indexAll(products);
+                geoIndex.indexAll(products);
+                catalogSnapshot.markChanged(products.stream().map(Product::getId).collect(Collectors.toList()));
+            });
+            result.imported += batch.size();
+        } catch (RuntimeException e) {
+            String cause = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            logger.error("Failed to save import batch of {} rows: {}", batch.size(), cause);
+            for (PendingRow pending : batch) {
+                result.fail(pending.row(), "Could not save row: " + cause);
+            }
+        }
+    }
+    
+    private Product toProduct(ProductRequest request, Long farmerId) {
+        Product product = new Product();
+        product.setName(request.getName());
+        product.setDescription(request.getDescription());
+        product.setPrice(request.getPrice());
+        product.setQuantity(request.getQuantity());
+        product.setLocation(request.getLocation());
+        product.setLatitude(request.getLatitude());
+        product.setLongitude(request.getLongitude());
+        product.setFarmerId(farmerId);
+        return product;
+    }
+    
+    private AuthenticatedUser getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return (AuthenticatedUser) authentication.getPrincipal();
+    }
+    
+    private record PendingRow(long row, Product product) {
+    }
+    
+    /**
+     * Running totals; only the first maxErrors row errors are kept
+     */
+    private class ImportResult {
+        private long imported;
+        private long failed;
+        private final List<ProductImportError> errors = new ArrayList<>();
+        private boolean errorsTruncated;
+        
+        void fail(long row, String message) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new ProductImportError(row, message));
+            } else {
+                errorsTruncated = true;
+            }
+        }
+    }
+    
+    /**
+     * Column positions from the CSV header (name, description, price, quantity, location,
+     * optional latitude/longitude, any order)
+     */
+    private static final class CsvColumns {
+        
+        private static final List<String> REQUIRED = List.of("name", "price", "quantity", "location");
+        
+        private final Map<String, Integer> positions;
+        
+        private CsvColumns(Map<String, Integer> positions) {
+            this.positions = positions;
+        }
+        
+        static CsvColumns fromHeader(List<String> names) {
+            Map<String, Integer> positions = new HashMap<>();
+            for (int i = 0; i < names.size(); i++) {
+                positions.put(names.get(i).replace("\uFEFF", "").trim().toLowerCase(), i);
+            }
+            List<String> missing = REQUIRED.stream()
+                    .filter(column -> !positions.containsKey(column))
+                    .collect(Collectors.toList());
+            if (!missing.isEmpty()) {
+                throw new RuntimeException("CSV header is missing column(s): " + String.join(", ", missing));
+            }
+            return new CsvColumns(positions);
+        }
+        
+        ProductRequest parse(List<String> fields) {
+            ProductRequest request = new ProductRequest();
+            request.setName(field(fields, "name"));
+            request.setDescription(field(fields, "description"));
+            request.setLocation(field(fields, "location"));
+            
+            String price = field(fields, "price");
+            String quantity = field(fields, "quantity");
+            try {
+                request.setPrice(price == null ? null : Double.valueOf(price));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid price: " + price);
+            }
+            try {
+                request.setQuantity(quantity == null ? null : Integer.valueOf(quantity));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid quantity: " + quantity);
+            }
+            request.setLatitude(coordinate(fields, "latitude"));
+            request.setLongitude(coordinate(fields, "longitude"));
+            return request;
+        }
+        
+        private Double coordinate(List<String> fields, String column) {
+            String value = field(fields, column);
+            try {
+                return value == null ? null : Double.valueOf(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid " + column + ": " + value);
+            }
+        }
+        
+        private String field(List<String> fields, String column) {
+            Integer position = positions.get(column);
+            if (position == null || position >= fields.size()) {
+                return null;
+            }
+            String value = fields.get(position).trim();
+            return value.isEmpty() ? null : value;
+        }
+    }
+}
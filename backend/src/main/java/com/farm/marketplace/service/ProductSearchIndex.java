@@ -0,0 +1,259 @@
+package com.farm.marketplace.service;
+
+import com.farm.marketplace.model.Product;
+import com.farm.marketplace.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over product name, description and location, ranked with BM25.
+ * Name terms count three times so title matches rank first. Every query token also matches
+ * indexed terms it is a prefix of (at a discount), which covers type-ahead searches.
+ * Built at startup and kept current as products are created, updated and deleted; changes
+ * committed while a rebuild is loading are recorded and replayed on top of the loaded data.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int NAME_WEIGHT = 3;
+    private static final double PREFIX_MATCH_WEIGHT = 0.7;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int BUILD_PAGE_SIZE = 1000;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    // term -> (product id -> weighted term frequency); sorted so prefixes are a range scan
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private long totalLength;
+
+    // Changes committed while a rebuild is loading, by product id (null terms = deleted); guarded by lock
+    private Map<Long, Map<String, Integer>> changedDuringRebuild;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * One page of matching product ids, best first, and the total number of matches
+     */
+    public record SearchResult(List<Long> productIds, int total) {
+    }
+
+    private record Document(Map<String, Integer> frequencies, int length) {
+    }
+
+    /**
+     * Load every product into the index once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<Long, Map<String, Integer>> loaded = new HashMap<>();
+        Page<Product> page = productRepository.findAll(PageRequest.of(0, BUILD_PAGE_SIZE, Sort.by("id")));
+        while (true) {
+            for (Product product : page.getContent()) {
+                loaded.put(product.getId(), termFrequencies(product));
+            }
+            if (!page.hasNext()) {
+                break;
+            }
+            page = productRepository.findAll(page.nextPageable());
+        }
+
+        int replayed;
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            totalLength = 0;
+            loaded.forEach(this::add);
+            // The load may have read some products before these changes committed
+            replayed = changedDuringRebuild.size();
+            changedDuringRebuild.forEach(this::apply);
+            changedDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Product search index built with {} products and {} terms ({} changes replayed)",
+                loaded.size(), postings.size(), replayed);
+    }
+
+    /**
+     * Add or replace a product; inside a transaction this happens after commit
+     */
+    public void index(Product product) {
+        indexAll(List.of(product));
+    }
+
+    /**
+     * Add or replace several products at once (bulk import)
+     */
+    public void indexAll(List<Product> products) {
+        Map<Long, Map<String, Integer>> terms = new HashMap<>();
+        for (Product product : products) {
+            terms.put(product.getId(), termFrequencies(product));
+        }
+        TransactionCallbacks.afterCommit(() -> change(terms));
+    }
+
+    /**
+     * Drop a product; inside a transaction this happens after commit
+     */
+    public void delete(Long productId) {
+        Map<Long, Map<String, Integer>> deleted = new HashMap<>();
+        deleted.put(productId, null);
+        TransactionCallbacks.afterCommit(() -> change(deleted));
+    }
+
+    /**
+     * Apply committed changes (null terms = deleted), recording them if a rebuild is loading
+     */
+    private void change(Map<Long, Map<String, Integer>> changes) {
+        lock.writeLock().lock();
+        try {
+            changes.forEach(this::apply);
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.putAll(changes);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rank products against the query and return one page of ids
+     */
+    public SearchResult search(String query, int offset, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return new SearchResult(List.of(), 0);
+        }
+
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            double averageLength = documentCount == 0 ? 0 : (double) totalLength / documentCount;
+
+            for (String token : new LinkedHashSet<>(tokens)) {
+                // Best match per product for this token, exact or by prefix
+                Map<Long, Double> tokenScores = new HashMap<>();
+                int expansions = 0;
+                for (Map.Entry<String, Map<Long, Integer>> entry
+                        : postings.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+                    if (expansions++ == MAX_PREFIX_EXPANSIONS) {
+                        break;
+                    }
+                    double weight = entry.getKey().equals(token) ? 1.0 : PREFIX_MATCH_WEIGHT;
+                    Map<Long, Integer> postingList = entry.getValue();
+                    double idf = Math.log(1 + (documentCount - postingList.size() + 0.5) / (postingList.size() + 0.5));
+                    for (Map.Entry<Long, Integer> posting : postingList.entrySet()) {
+                        int length = documents.get(posting.getKey()).length();
+                        double tf = posting.getValue();
+                        double score = weight * idf * tf * (K1 + 1)
+                                / (tf + K1 * (1 - B + B * length / averageLength));
+                        tokenScores.merge(posting.getKey(), score, Math::max);
+                    }
+                }
+                tokenScores.forEach((productId, score) -> scores.merge(productId, score, Double::sum));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Long> ranked = scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.<Long, Double>comparingByKey()))
+                .skip(offset)
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+        return new SearchResult(ranked, scores.size());
+    }
+
+    /**
+     * Lower-case letter/digit runs
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private Map<String, Integer> termFrequencies(Product product) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokenize(product.getName())) {
+            frequencies.merge(token, NAME_WEIGHT, Integer::sum);
+        }
+        for (String token : tokenize(product.getDescription())) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        for (String token : tokenize(product.getLocation())) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        return frequencies;
+    }
+
+    // Callers hold the write lock
+    private void apply(Long productId, Map<String, Integer> frequencies) {
+        remove(productId);
+        if (frequencies != null) {
+            add(productId, frequencies);
+        }
+    }
+
+    // Callers hold the write lock
+    private void add(Long productId, Map<String, Integer> frequencies) {
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), key -> new HashMap<>()).put(productId, entry.getValue());
+            length += entry.getValue();
+        }
+        documents.put(productId, new Document(frequencies, length));
+        totalLength += length;
+    }
+
+    // Callers hold the write lock
+    private void remove(Long productId) {
+        Document document = documents.remove(productId);
+        if (document == null) {
+            return;
+        }
+        for (String term : document.frequencies().keySet()) {
+            Map<Long, Integer> postingList = postings.get(term);
+            postingList.remove(productId);
+            if (postingList.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= document.length();
+    }
+}
@@ -1,7 +1,10 @@
 package com.farm.marketplace.service;
 
+import com.farm.marketplace.dto.NearbyProductResponse;
+import com.farm.marketplace.dto.ProductPageResponse;
 import com.farm.marketplace.dto.ProductRequest;
 import com.farm.marketplace.dto.ProductResponse;
+import com.farm.marketplace.dto.ProductSearchResponse;
 import com.farm.marketplace.exception.ResourceNotFoundException;
 import com.farm.marketplace.exception.UnauthorizedException;
 import com.farm.marketplace.model.Product;
@@ -9,17 +12,40 @@ import com.farm.marketplace.model.Role;
 import com.farm.marketplace.model.User;
 import com.farm.marketplace.repository.ProductRepository;
 import com.farm.marketplace.repository.UserRepository;
+import com.farm.marketplace.security.AuthenticatedUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class ProductService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ProductService.class);
+    
+    private static final int SNAPSHOT_PAGE_SIZE = 1000;
+
     @Autowired
     private ProductRepository productRepository;
 
@@ -28,9 +54,34 @@ public class ProductService {
     
     @Autowired
     private InventoryService inventoryService;
+    
+    @Autowired
+    private DeliveryService deliveryService;
+    
+    @Autowired
+    private ProductSearchIndex searchIndex;
+    
+    @Autowired
+    private ProductGeoIndex geoIndex;
+    
+    @Autowired
+    private EntityCacheEvictor cacheEvictor;
+    
+    @Autowired
+    private CatalogSnapshot catalogSnapshot;
+    
+    @Value("${catalog.page.default-size:20}")
+    private int defaultPageSize;
+    
+    @Value("${catalog.page.max-size:100}")
+    private int maxPageSize;
 
+    /**
+     * Create a product and its inventory row in one transaction (both inserts go out at commit)
+     */
+    @Transactional
     public ProductResponse createProduct(ProductRequest request) {
-        User farmer = getCurrentUser();
+        AuthenticatedUser farmer = getCurrentUser();
         
         // Check if user is a farmer
         if (farmer.getRole() != Role.FARMER) {
@@ -43,21 +94,161 @@ public class ProductService {
         product.setPrice(request.getPrice());
         product.setQuantity(request.getQuantity());
         product.setLocation(request.getLocation());
+        product.setLatitude(request.getLatitude());
+        product.setLongitude(request.getLongitude());
         product.setFarmerId(farmer.getId());
 
         Product savedProduct = productRepository.save(product);
         
         // Initialize inventory for the new product
         inventoryService.initializeInventory(savedProduct.getId(), savedProduct.getQuantity());
+        searchIndex.index(savedProduct);
+        geoIndex.index(savedProduct);
+        catalogSnapshot.markChanged(savedProduct.getId());
         
-        return mapToResponse(savedProduct, farmer);
+        return mapToResponseWithFarmer(savedProduct);
     }
 
     public List<ProductResponse> getAllProducts() {
         List<Product> products = productRepository.findAll();
-        return products.stream()
-                .map(this::mapToResponseWithFarmer)
+        return mapToResponses(products);
+    }
+
+    /**
+     * Build the in-memory catalog snapshot from scratch: once at startup, then periodically
+     * to pick up anything written outside this service (e.g. direct SQL)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${catalog.snapshot.full-rebuild-interval-ms:600000}",
+               fixedDelayString = "${catalog.snapshot.full-rebuild-interval-ms:600000}")
+    public synchronized void rebuildCatalogSnapshot() {
+        List<ProductResponse> products = new ArrayList<>();
+        Page<Product> page = productRepository.findAll(PageRequest.of(0, SNAPSHOT_PAGE_SIZE, Sort.by("id")));
+        while (true) {
+            products.addAll(mapToResponses(page.getContent()));
+            if (!page.hasNext()) {
+                break;
+            }
+            page = productRepository.findAll(page.nextPageable());
+        }
+        catalogSnapshot.replaceAll(products);
+        logger.info("Catalog snapshot built with {} products", products.size());
+    }
+
+    /**
+     * Re-encode products changed since the last run. Rows are read with a query rather than
+     * through the second-level cache, whose eviction may still be in flight after commit.
+     */
+    @Scheduled(fixedDelayString = "${catalog.snapshot.refresh-interval-ms:1000}")
+    public synchronized void refreshCatalogSnapshot() {
+        Set<Long> changedIds = catalogSnapshot.drainChanges();
+        if (!changedIds.isEmpty()) {
+            catalogSnapshot.apply(changedIds, mapToResponses(productRepository.findByIdIn(changedIds)));
+        }
+    }
+
+    /**
+     * Full-text search over name, description and location, served from the in-memory index;
+     * only the products on the requested page are loaded, by id
+     */
+    public ProductSearchResponse searchProducts(String query, Integer page, Integer size) {
+        if (query == null || query.isBlank()) {
+            throw new RuntimeException("Search query is required");
+        }
+        int pageNumber = page == null ? 0 : Math.max(0, page);
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+
+        ProductSearchIndex.SearchResult result =
+                searchIndex.search(query, Math.multiplyExact(pageNumber, pageSize), pageSize);
+        Map<Long, Product> products = productRepository.findAllById(result.productIds()).stream()
+                .collect(Collectors.toMap(Product::getId, product -> product));
+        List<Product> ranked = result.productIds().stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
+
+        return new ProductSearchResponse(mapToResponses(ranked), result.total(), pageNumber, pageSize);
+    }
+
+    /**
+     * Products near a point, nearest first, served from the in-memory grid index. With a radius
+     * this returns products within radiusKm; without one, the limit nearest products.
+     */
+    public List<NearbyProductResponse> findNearbyProducts(Double latitude, Double longitude,
+                                                          Double radiusKm, Integer limit) {
+        if (latitude == null || longitude == null) {
+            throw new RuntimeException("Latitude and longitude are required");
+        }
+        if (!(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180)) {
+            throw new RuntimeException("Latitude must be within [-90, 90] and longitude within [-180, 180]");
+        }
+        if (radiusKm != null && !(radiusKm > 0)) {
+            throw new RuntimeException("Radius must be positive");
+        }
+        int count = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+
+        List<ProductGeoIndex.Match> matches = radiusKm == null
+                ? geoIndex.nearest(latitude, longitude, count)
+                : geoIndex.withinRadius(latitude, longitude, Math.min(radiusKm, ProductGeoIndex.MAX_DISTANCE_KM), count);
+        Map<Long, Product> products = productRepository.findAllById(
+                        matches.stream().map(ProductGeoIndex.Match::productId).toList()).stream()
+                .collect(Collectors.toMap(Product::getId, product -> product));
+        List<ProductGeoIndex.Match> found = matches.stream()
+                .filter(match -> products.containsKey(match.productId()))
+                .toList();
+        List<ProductResponse> responses = mapToResponses(found.stream()
+                .map(match -> products.get(match.productId()))
+                .toList());
+
+        List<NearbyProductResponse> nearby = new ArrayList<>(found.size());
+        for (int i = 0; i < found.size(); i++) {
+            nearby.add(new NearbyProductResponse(responses.get(i), found.get(i).distanceKm()));
+        }
+        return nearby;
+    }
+
+    /**
+     * Get a page of the catalog, seeking on (createdAt, id) so deep pages cost the same as the first
+     */
+    public ProductPageResponse getCatalogPage(String cursor, Integer size) {
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+        // Fetch one extra row to know whether another page follows
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<Product> products;
+        if (cursor == null || cursor.isBlank()) {
+            products = productRepository.findCatalogFirstPage(limit);
+        } else {
+            CatalogCursor position = decodeCursor(cursor);
+            products = productRepository.findCatalogPageAfter(position.createdAt(), position.id(), limit);
+        }
+
+        boolean hasMore = products.size() > pageSize;
+        if (hasMore) {
+            products = products.subList(0, pageSize);
+        }
+        String nextCursor = hasMore ? encodeCursor(products.get(products.size() - 1)) : null;
+
+        return new ProductPageResponse(mapToResponses(products), nextCursor, hasMore);
+    }
+
+    /**
+     * Validators for the full product list; they change whenever a product is added, updated
+     * (including stock changes) or removed. Computed without loading any product rows.
+     */
+    public ResourceVersion getCatalogVersion() {
+        ProductRepository.CatalogVersion version = productRepository.findCatalogVersion();
+        return ResourceVersion.of("products:" + version.getCount() + ":" + version.getLastUpdated(),
+                version.getLastUpdated());
+    }
+
+    /**
+     * Validators for a single product, from its updatedAt alone
+     */
+    public ResourceVersion getProductVersion(Long id) {
+        LocalDateTime updatedAt = productRepository.findUpdatedAtById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
+        return ResourceVersion.of("product:" + id + ":" + updatedAt, updatedAt);
     }
 
     public ProductResponse getProductById(Long id) {
@@ -67,7 +258,7 @@ public class ProductService {
     }
 
     public ProductResponse updateProduct(Long id, ProductRequest request) {
-        User user = getCurrentUser();
+        AuthenticatedUser user = getCurrentUser();
         
         // Check if user is a farmer or admin
         if (user.getRole() != Role.FARMER && user.getRole() != Role.ADMIN) {
@@ -82,22 +273,35 @@ public class ProductService {
             throw new UnauthorizedException("You can only update your own products");
         }
 
+        boolean renamed = !product.getName().equals(request.getName());
+
         product.setName(request.getName());
         product.setDescription(request.getDescription());
         product.setPrice(request.getPrice());
         product.setQuantity(request.getQuantity());
         product.setLocation(request.getLocation());
+        product.setLatitude(request.getLatitude());
+        product.setLongitude(request.getLongitude());
 
         Product updatedProduct = productRepository.save(product);
+        cacheEvictor.evictProduct(updatedProduct.getId());
+        searchIndex.index(updatedProduct);
+        geoIndex.index(updatedProduct);
+        catalogSnapshot.markChanged(updatedProduct.getId());
         
         // Sync inventory with updated product quantity
         inventoryService.syncInventoryWithProduct(updatedProduct.getId());
         
-        return mapToResponse(updatedProduct, user);
+        // Refresh product name snapshots on deliveries
+        if (renamed) {
+            deliveryService.refreshProductName(updatedProduct.getId(), updatedProduct.getName());
+        }
+        
+        return mapToResponseWithFarmer(updatedProduct);
     }
 
     public void deleteProduct(Long id) {
-        User user = getCurrentUser();
+        AuthenticatedUser user = getCurrentUser();
         
         // Check if user is a farmer or admin
         if (user.getRole() != Role.FARMER && user.getRole() != Role.ADMIN) {
@@ -113,35 +317,40 @@ public class ProductService {
         }
 
         productRepository.delete(product);
+        cacheEvictor.evictProduct(product.getId());
+        searchIndex.delete(product.getId());
+        geoIndex.delete(product.getId());
+        catalogSnapshot.markChanged(product.getId());
     }
 
-    private User getCurrentUser() {
+    private AuthenticatedUser getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String email = authentication.getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-    }
-
-    private ProductResponse mapToResponse(Product product, User farmer) {
-        ProductResponse response = new ProductResponse();
-        response.setId(product.getId());
-        response.setName(product.getName());
-        response.setDescription(product.getDescription());
-        response.setPrice(product.getPrice());
-        response.setQuantity(product.getQuantity());
-        response.setLocation(product.getLocation());
-        response.setFarmerId(product.getFarmerId());
-        response.setFarmerName(farmer.getName());
-        response.setCreatedAt(product.getCreatedAt());
-        response.setUpdatedAt(product.getUpdatedAt());
-        return response;
+        return (AuthenticatedUser) authentication.getPrincipal();
     }
 
     private ProductResponse mapToResponseWithFarmer(Product product) {
         User farmer = userRepository.findById(product.getFarmerId())
                 .orElse(null);
         String farmerName = farmer != null ? farmer.getName() : "Unknown";
-        
+        return mapToResponse(product, farmerName);
+    }
+
+    /**
+     * Map products resolving all farmer names with one batched lookup
+     */
+    private List<ProductResponse> mapToResponses(List<Product> products) {
+        Set<Long> farmerIds = products.stream()
+                .map(Product::getFarmerId)
+                .collect(Collectors.toSet());
+        Map<Long, String> farmerNames = userRepository.findAllById(farmerIds).stream()
+                .collect(Collectors.toMap(User::getId, User::getName));
+
+        return products.stream()
+                .map(product -> mapToResponse(product, farmerNames.getOrDefault(product.getFarmerId(), "Unknown")))
+                .collect(Collectors.toList());
+    }
+
+    private ProductResponse mapToResponse(Product product, String farmerName) {
         ProductResponse response = new ProductResponse();
         response.setId(product.getId());
         response.setName(product.getName());
@@ -149,10 +358,31 @@ public class ProductService {
         response.setPrice(product.getPrice());
         response.setQuantity(product.getQuantity());
         response.setLocation(product.getLocation());
+        response.setLatitude(product.getLatitude());
+        response.setLongitude(product.getLongitude());
         response.setFarmerId(product.getFarmerId());
         response.setFarmerName(farmerName);
         response.setCreatedAt(product.getCreatedAt());
         response.setUpdatedAt(product.getUpdatedAt());
         return response;
     }
+
+    private String encodeCursor(Product product) {
+        String raw = product.getCreatedAt() + "|" + product.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private CatalogCursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new CatalogCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                                     Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new RuntimeException("Invalid catalog cursor");
+        }
+    }
+
+    private record CatalogCursor(LocalDateTime createdAt, Long id) {
+    }
 }
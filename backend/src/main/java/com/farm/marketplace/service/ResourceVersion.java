@@ -0,0 +1,23 @@
+package com.farm.marketplace.service;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * HTTP validators for a resource: a strong ETag and a Last-Modified time in epoch
+ * milliseconds (-1 when unknown, which WebRequest.checkNotModified ignores)
+ */
+public record ResourceVersion(String eTag, long lastModified) {
+
+    /**
+     * Derive validators from a key that changes with the representation and its newest update time
+     */
+    static ResourceVersion of(String key, LocalDateTime updatedAt) {
+        String eTag = '"' + DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8)) + '"';
+        long lastModified = updatedAt == null ? -1 : updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return new ResourceVersion(eTag, lastModified);
+    }
+}
@@ -0,0 +1,365 @@
+package com.farm.marketplace.service;
+
+import com.farm.marketplace.dto.InventoryResponse;
+import com.farm.marketplace.model.Inventory;
+import com.farm.marketplace.model.InventoryShard;
+import com.farm.marketplace.repository.InventoryRepository;
+import com.farm.marketplace.repository.InventoryShardRepository;
+import com.farm.marketplace.repository.InventoryShardRepository.ShardStock;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Optional sharded-counter layout for hot products.
+ * A sharded product's available stock is split across several inventory_shards rows so
+ * concurrent orders lock different rows. The Inventory row stays as a summary that is
+ * refreshed on rebalance; reads always sum the shards.
+ * Which products are sharded is cached in memory. The cache may list a product whose shards
+ * are not visible yet (shard() still running) or no longer exist (unshard() just committed);
+ * the stock methods then wait on the Inventory row, look again and report that the caller
+ * should use the Inventory row instead.
+ */
+@Service
+public class ShardedInventoryService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ShardedInventoryService.class);
+    
+    @Autowired
+    private InventoryShardRepository shardRepository;
+    
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    
+    @Autowired
+    private MarketplaceMetrics metrics;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Value("${inventory.sharding.enabled:false}")
+    private boolean enabled;
+    
+    private final Set<Long> shardedProductIds = ConcurrentHashMap.newKeySet();
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Load the sharded product ids once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadShardedProductIds() {
+        if (enabled) {
+            shardedProductIds.addAll(shardRepository.findShardedProductIds());
+        }
+    }
+    
+    /**
+     * Whether this product's stock lives in shards (from the in-memory cache, no query)
+     */
+    public boolean isSharded(Long productId) {
+        return enabled && shardedProductIds.contains(productId);
+    }
+    
+    /**
+     * Total available stock across the product's shards, null when it has none
+     */
+    public Integer getAvailableQuantity(Long productId) {
+        Long total = shardRepository.sumAvailableQuantity(productId);
+        return total == null ? null : total.intValue();
+    }
+    
+    /**
+     * Replace available quantities of sharded products in a listing with their shard totals (one query)
+     */
+    public List<InventoryResponse> applyShardTotals(List<InventoryResponse> inventory) {
+        if (!enabled || inventory.isEmpty()) {
+            return inventory;
+        }
+        
+        List<Long> productIds = inventory.stream()
+                .map(InventoryResponse::getProductId)
+                .collect(Collectors.toList());
+        Map<Long, Integer> totals = new HashMap<>();
+        for (Object[] row : shardRepository.sumAvailableQuantityByProductIds(productIds)) {
+            totals.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        
+        for (InventoryResponse response : inventory) {
+            Integer available = totals.get(response.getProductId());
+            if (available != null) {
+                response.setAvailableQuantity(available);
+                response.setTotalQuantity(available + response.getReservedQuantity());
+            }
+        }
+        return inventory;
+    }
+    
+    /**
+     * Split a product's stock across shardCount rows (or re-split an already sharded product)
+     */
+    @Transactional
+    public void shard(Long productId, int shardCount) {
+        if (!enabled) {
+            throw new RuntimeException("Sharded inventory is disabled");
+        }
+        if (shardCount < 2) {
+            throw new RuntimeException("Shard count must be at least 2");
+        }
+        
+        Inventory inventory = lockInventory(productId);
+        List<InventoryShard> existing = shardRepository.findByProductIdWithLock(productId);
+        int total = existing.isEmpty() ? inventory.getAvailableQuantity() : sum(existing);
+        
+        // Listed before commit, so no order can take the Inventory row path once the shards exist
+        if (shardedProductIds.add(productId)) {
+            TransactionCallbacks.afterRollback(() -> shardedProductIds.remove(productId));
+        }
+        
+        // Delete before inserting so the (product, shard index) unique key is free
+        shardRepository.deleteAll(existing);
+        entityManager.flush();
+        
+        List<InventoryShard> shards = new ArrayList<>();
+        for (int i = 0; i < shardCount; i++) {
+            InventoryShard shard = new InventoryShard();
+            shard.setProductId(productId);
+            shard.setShardIndex(i);
+            shards.add(shard);
+        }
+        distributeEvenly(shards, total);
+        writeShards(shards);
+        
+        inventory.setAvailableQuantity(total);
+        inventoryRepository.save(inventory);
+        
+        logger.info("Sharded inventory for product ID: {} | Shards: {} | Quantity: {}", productId, shardCount, total);
+    }
+    
+    /**
+     * Fold a product's shards back into its single Inventory row
+     */
+    @Transactional
+    public void unshard(Long productId) {
+        Inventory inventory = lockInventory(productId);
+        List<InventoryShard> shards = shardRepository.findByProductIdWithLock(productId);
+        if (shards.isEmpty()) {
+            return;
+        }
+        
+        int total = sum(shards);
+        shardRepository.deleteAll(shards);
+        inventory.setAvailableQuantity(total);
+        inventoryRepository.save(inventory);
+        
+        // Delisted after commit; until then the shards are still there for orders to use
+        TransactionCallbacks.afterCommit(() -> shardedProductIds.remove(productId));
+        
+        logger.info("Unsharded inventory for product ID: {} | Quantity: {}", productId, total);
+    }
+    
+    /**
+     * Take stock off a random shard that has enough, falling back to the other shards.
+     * Only when no single shard can cover the request are all shards locked and drained together.
+     * Returns false when the product turns out to have no shards.
+     */
+    @Transactional
+    public boolean decrease(Long productId, int quantity) {
+        List<ShardStock> stock = findStock(productId);
+        if (stock.isEmpty()) {
+            return false;
+        }
+        int count = stock.size();
+        int start = ThreadLocalRandom.current().nextInt(count);
+        for (int i = 0; i < count; i++) {
+            ShardStock shard = stock.get((start + i) % count);
+            // Claim without waiting: an update that waited for a busy shard and then found too little
+            // stock would keep its lock, and locking every shard below could then deadlock
+            if (shard.getAvailableQuantity() >= quantity
+                    && shardRepository.claimIfAvailable(shard.getId(), quantity).isPresent()) {
+                shardRepository.decrementIfAvailable(shard.getId(), quantity);
+                return true;
+            }
+        }
+        
+        List<InventoryShard> shards = findShardsWithLock(productId);
+        if (shards.isEmpty()) {
+            return false;
+        }
+        int total = sum(shards);
+        if (total < quantity) {
+            metrics.recordOutOfStock("shards");
+            throw new RuntimeException("Insufficient stock. Available: " + total + ", Requested: " + quantity);
+        }
+        
+        int remaining = quantity;
+        for (InventoryShard shard : shards) {
+            int taken = Math.min(remaining, shard.getAvailableQuantity());
+            shard.setAvailableQuantity(shard.getAvailableQuantity() - taken);
+            remaining -= taken;
+        }
+        writeShards(shards);
+        return true;
+    }
+    
+    /**
+     * Return stock to a random shard. Returns false when the product turns out to have no shards.
+     */
+    @Transactional
+    public boolean increase(Long productId, int quantity) {
+        List<ShardStock> stock = findStock(productId);
+        if (stock.isEmpty()) {
+            return false;
+        }
+        ShardStock shard = stock.get(ThreadLocalRandom.current().nextInt(stock.size()));
+        shardRepository.increment(shard.getId(), quantity);
+        return true;
+    }
+    
+    /**
+     * Lock every shard of a product, so no order or cancel can change its stock until commit
+     */
+    @Transactional
+    public void lockShards(Long productId) {
+        shardRepository.findByProductIdWithLock(productId);
+    }
+    
+    /**
+     * Set the product's total stock, spread evenly across its shards.
+     * Callers hold the Inventory row lock, so an empty list means the product was just unsharded.
+     */
+    @Transactional
+    public void setAvailableQuantity(Long productId, int quantity) {
+        List<InventoryShard> shards = shardRepository.findByProductIdWithLock(productId);
+        if (shards.isEmpty()) {
+            return;
+        }
+        distributeEvenly(shards, quantity);
+        writeShards(shards);
+    }
+    
+    /**
+     * Apply a flash-sale batch across all shards: take back released stock, then grant
+     * requests in queue order while the shard total lasts. Returns null when the product
+     * turns out to have no shards.
+     */
+    @Transactional
+    public boolean[] applyStockBatch(Long productId, List<Integer> requestedQuantities, int releasedQuantity) {
+        List<InventoryShard> shards = findShardsWithLock(productId);
+        if (shards.isEmpty()) {
+            return null;
+        }
+        int available = sum(shards) + releasedQuantity;
+        
+        boolean[] granted = new boolean[requestedQuantities.size()];
+        for (int i = 0; i < requestedQuantities.size(); i++) {
+            int quantity = requestedQuantities.get(i);
+            if (quantity <= available) {
+                granted[i] = true;
+                available -= quantity;
+            }
+        }
+        
+        distributeEvenly(shards, available);
+        writeShards(shards);
+        return granted;
+    }
+    
+    /**
+     * Even out stock between a product's shards and refresh the Inventory summary row
+     */
+    @Transactional
+    public void rebalance(Long productId) {
+        Inventory inventory = lockInventory(productId);
+        List<InventoryShard> shards = shardRepository.findByProductIdWithLock(productId);
+        if (shards.isEmpty()) {
+            return;
+        }
+        
+        int total = sum(shards);
+        distributeEvenly(shards, total);
+        writeShards(shards);
+        
+        if (inventory.getAvailableQuantity() != total) {
+            inventory.setAvailableQuantity(total);
+            inventoryRepository.save(inventory);
+        }
+    }
+    
+    /**
+     * Products whose inventory is currently sharded
+     */
+    @Transactional(readOnly = true)
+    public List<Long> getShardedProductIds() {
+        return shardRepository.findShardedProductIds();
+    }
+    
+    /**
+     * Unlocked shard stock; when none is visible, wait for any shard()/unshard() holding the
+     * Inventory row to finish and look again
+     */
+    private List<ShardStock> findStock(Long productId) {
+        List<ShardStock> stock = shardRepository.findStockByProductId(productId);
+        if (stock.isEmpty()) {
+            lockInventory(productId);
+            stock = shardRepository.findStockByProductId(productId);
+        }
+        return stock;
+    }
+    
+    /**
+     * Lock every shard in shard order; when none is visible, wait on the Inventory row and look again
+     */
+    private List<InventoryShard> findShardsWithLock(Long productId) {
+        List<InventoryShard> shards = shardRepository.findByProductIdWithLock(productId);
+        if (shards.isEmpty()) {
+            lockInventory(productId);
+            shards = shardRepository.findByProductIdWithLock(productId);
+        }
+        return shards;
+    }
+    
+    private Inventory lockInventory(Long productId) {
+        return metrics.timeInventoryLock("shard", () -> inventoryRepository.findByProductIdWithLock(productId))
+                .orElseThrow(() -> new RuntimeException("Inventory not found for product ID: " + productId));
+    }
+    
+    /**
+     * Save and detach, so later bulk updates in the same transaction never meet stale managed shards
+     */
+    private void writeShards(List<InventoryShard> shards) {
+        shardRepository.saveAll(shards);
+        entityManager.flush();
+        shards.forEach(entityManager::detach);
+    }
+    
+    private static int sum(List<InventoryShard> shards) {
+        return shards.stream().mapToInt(InventoryShard::getAvailableQuantity).sum();
+    }
+    
+    private static void distributeEvenly(List<InventoryShard> shards, int total) {
+        int base = total / shards.size();
+        int remainder = total % shards.size();
+        for (int i = 0; i < shards.size(); i++) {
+            shards.get(i).setAvailableQuantity(base + (i < remainder ? 1 : 0));
+        }
+    }
+}
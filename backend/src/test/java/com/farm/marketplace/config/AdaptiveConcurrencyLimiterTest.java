@@ -0,0 +1,90 @@
+package com.farm.marketplace.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @Test
+    void refusesRequestsBeyondTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, 1, 10);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+
+        limiter.release(FAST, false);
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void fastRequestsRaiseTheLimitOnlyWhileBusy() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 1, 10);
+
+        // One request of four allowed: not busy enough to grow
+        limiter.tryAcquire();
+        limiter.release(FAST, false);
+        assertThat(limiter.getLimit()).isEqualTo(4);
+
+        // Two in flight is half the limit: each fast completion adds one
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+        limiter.release(FAST, false);
+        assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    void slowOrFailedRequestsBackOffMultiplicatively() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 1, 100);
+
+        limiter.tryAcquire();
+        limiter.release(SLOW, false);
+        assertThat(limiter.getLimit()).isEqualTo(18);
+
+        limiter.tryAcquire();
+        limiter.release(FAST, true);
+        assertThat(limiter.getLimit()).isEqualTo(16);   // 18 * 0.9 = 16.2
+    }
+
+    @Test
+    void staysWithinMinAndMax() {
+        AdaptiveConcurrencyLimiter limiter = limiter(3, 2, 4);
+        for (int i = 0; i < 20; i++) {
+            limiter.tryAcquire();
+            limiter.release(SLOW, false);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(2);
+
+        for (int i = 0; i < 20; i++) {
+            limiter.tryAcquire();
+            limiter.tryAcquire();
+            limiter.release(FAST, false);
+            limiter.release(FAST, false);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    void initialLimitIsClampedToTheBounds() {
+        assertThat(limiter(500, 1, 50).getLimit()).isEqualTo(50);
+        assertThat(limiter(1, 5, 50).getLimit()).isEqualTo(5);
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(int initialLimit, int minLimit, int maxLimit) {
+        ConcurrencyLimitProperties.Group settings = new ConcurrencyLimitProperties.Group();
+        settings.setInitialLimit(initialLimit);
+        settings.setMinLimit(minLimit);
+        settings.setMaxLimit(maxLimit);
+        settings.setLatencyThreshold(Duration.ofMillis(100));
+        settings.setBackoffRatio(0.9);
+        return new AdaptiveConcurrencyLimiter("test", settings);
+    }
+}
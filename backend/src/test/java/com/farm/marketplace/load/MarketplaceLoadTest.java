@@ -0,0 +1,282 @@
+package com.farm.marketplace.load;
+
+import com.farm.marketplace.model.*;
+import com.farm.marketplace.repository.OrderRepository;
+import com.farm.marketplace.repository.ProductRepository;
+import com.farm.marketplace.repository.UserRepository;
+import com.farm.marketplace.security.JwtUtil;
+import com.farm.marketplace.service.DeliveryService;
+import com.farm.marketplace.service.InventoryService;
+import com.farm.marketplace.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load generator for order placement, catalog reads and delivery tracking.
+ * Boots the app on the embedded database, seeds farmers, buyers and products, then drives a
+ * weighted traffic mix from many client threads and logs throughput and p50/p95/p99 per endpoint.
+ *
+ * Run with ./mvnw -Pload-test test. Tune with -Dload.concurrency, -Dload.warmup-seconds
+ * and -Dload.duration-seconds.
+ */
+@Tag("load")
+@ActiveProfiles("embedded")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class MarketplaceLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(MarketplaceLoadTest.class);
+
+    private static final int FARMERS = 10;
+    private static final int BUYERS = 50;
+    private static final int PRODUCTS = 200;
+    private static final int SHIPPED_ORDERS = 500;
+    private static final int STOCK = 1_000_000;
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 32);
+    private static final int WARMUP_SECONDS = Integer.getInteger("load.warmup-seconds", 5);
+    private static final int DURATION_SECONDS = Integer.getInteger("load.duration-seconds", 20);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private DeliveryService deliveryService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final List<User> buyers = new ArrayList<>();
+    private final Map<Long, String> tokens = new HashMap<>();
+    private final List<Long> productIds = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        List<User> farmers = new ArrayList<>();
+        for (int i = 0; i < FARMERS; i++) {
+            farmers.add(saveUser("Farmer " + i, Role.FARMER));
+        }
+        for (int i = 0; i < BUYERS; i++) {
+            buyers.add(saveUser("Buyer " + i, Role.BUYER));
+        }
+
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = new Product();
+            product.setName("Produce " + i);
+            product.setDescription("Fresh seasonal produce lot " + i);
+            product.setPrice(2.5 + i % 10);
+            product.setQuantity(STOCK);
+            product.setLocation("Village " + i % 25);
+            product.setFarmerId(farmers.get(i % FARMERS).getId());
+            Long productId = productRepository.save(product).getId();
+            inventoryService.initializeInventory(productId, STOCK);
+            productIds.add(productId);
+        }
+
+        // Shipped orders with deliveries so tracking pages have rows to show
+        for (int i = 0; i < SHIPPED_ORDERS; i++) {
+            Order order = new Order();
+            order.setProductId(productIds.get(i % PRODUCTS));
+            order.setBuyerId(buyers.get(i % BUYERS).getId());
+            order.setQuantity(1);
+            order.setTotalPrice(2.5);
+            order.setStatus(OrderStatus.SHIPPED);
+            deliveryService.autoCreateDeliveryForShippedOrder(orderRepository.save(order).getId());
+        }
+
+        // Products were saved through the repository, so load them into the catalog snapshot
+        productService.rebuildCatalogSnapshot();
+    }
+
+    @Test
+    void orderPlacementAndCatalogReadsUnderLoad() throws Exception {
+        List<Scenario> mix = List.of(
+                new Scenario("GET /api/products", 20, buyer -> get("/api/products", buyer)),
+                new Scenario("GET /api/products/catalog", 20, buyer -> get("/api/products/catalog?size=20", buyer)),
+                new Scenario("GET /api/products/{id}", 20, buyer -> get("/api/products/" + randomProductId(), buyer)),
+                new Scenario("POST /api/orders", 25, buyer -> post("/api/orders",
+                        "{\"productId\":" + randomProductId() + ",\"quantity\":1}", buyer)),
+                new Scenario("GET /api/orders/buyer/{id}", 5, buyer -> get("/api/orders/buyer/" + buyer.getId(), buyer)),
+                new Scenario("GET /api/delivery/tracking/{id}", 10,
+                        buyer -> get("/api/delivery/tracking/" + buyer.getId(), buyer)));
+
+        run(mix, WARMUP_SECONDS);
+        Map<String, EndpointStats> results = run(mix, DURATION_SECONDS);
+
+        report(results);
+        results.forEach((endpoint, stats) ->
+                assertThat(stats.serverErrors).as("5xx responses from %s", endpoint).isZero());
+    }
+
+    /**
+     * Drive the mix from CONCURRENCY threads for the given time and collect latencies per endpoint
+     */
+    private Map<String, EndpointStats> run(List<Scenario> mix, int seconds) throws Exception {
+        int totalWeight = mix.stream().mapToInt(Scenario::weight).sum();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCY);
+        List<Future<Map<String, EndpointStats>>> workers = new ArrayList<>();
+        for (int i = 0; i < CONCURRENCY; i++) {
+            workers.add(clients.submit(() -> {
+                Map<String, EndpointStats> stats = new HashMap<>();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    Scenario scenario = pick(mix, random.nextInt(totalWeight));
+                    User buyer = buyers.get(random.nextInt(buyers.size()));
+                    long start = System.nanoTime();
+                    int status = client.send(scenario.request().build(buyer), HttpResponse.BodyHandlers.discarding())
+                            .statusCode();
+                    stats.computeIfAbsent(scenario.name(), name -> new EndpointStats())
+                            .record(System.nanoTime() - start, status);
+                }
+                return stats;
+            }));
+        }
+
+        Map<String, EndpointStats> merged = new TreeMap<>();
+        for (Future<Map<String, EndpointStats>> worker : workers) {
+            worker.get().forEach((name, stats) ->
+                    merged.computeIfAbsent(name, key -> new EndpointStats()).merge(stats));
+        }
+        clients.shutdown();
+        merged.values().forEach(stats -> stats.seconds = seconds);
+        return merged;
+    }
+
+    private static void report(Map<String, EndpointStats> results) {
+        logger.info(String.format("%-34s %9s %8s %8s %10s %9s %9s %9s",
+                "Endpoint", "Requests", "Errors", "Shed", "Req/s", "p50 ms", "p95 ms", "p99 ms"));
+        results.forEach((endpoint, stats) -> logger.info(String.format("%-34s %9d %8d %8d %10.1f %9.2f %9.2f %9.2f",
+                endpoint, stats.latencies.size(), stats.errors, stats.shed, stats.throughput(),
+                stats.percentileMillis(50), stats.percentileMillis(95), stats.percentileMillis(99))));
+        logger.info("Concurrency: {}, duration: {}s", CONCURRENCY, DURATION_SECONDS);
+    }
+
+    private static Scenario pick(List<Scenario> mix, int roll) {
+        for (Scenario scenario : mix) {
+            roll -= scenario.weight();
+            if (roll < 0) {
+                return scenario;
+            }
+        }
+        return mix.get(mix.size() - 1);
+    }
+
+    private Long randomProductId() {
+        return productIds.get(ThreadLocalRandom.current().nextInt(productIds.size()));
+    }
+
+    private HttpRequest get(String path, User user) {
+        return authorized(path, user).GET().build();
+    }
+
+    private HttpRequest post(String path, String json, User user) {
+        return authorized(path, user)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private HttpRequest.Builder authorized(String path, User user) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + tokens.get(user.getId()));
+    }
+
+    private User saveUser(String name, Role role) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name.toLowerCase().replace(' ', '.') + "@load.test");
+        user.setPassword("not-used-by-jwt");
+        user.setRole(role);
+        User saved = userRepository.save(user);
+        tokens.put(saved.getId(), jwtUtil.generateToken(saved));
+        return saved;
+    }
+
+    private record Scenario(String name, int weight, RequestFactory request) {
+    }
+
+    @FunctionalInterface
+    private interface RequestFactory {
+        HttpRequest build(User buyer);
+    }
+
+    private static final class EndpointStats {
+
+        private final List<Long> latencies = new ArrayList<>();
+        private long errors;
+        private long serverErrors;
+        private long shed;
+        private int seconds;
+
+        void record(long nanos, int status) {
+            latencies.add(nanos);
+            if (status >= 400) {
+                errors++;
+            }
+            if (status == 503) {
+                shed++;   // Refused by the concurrency limiter: load shedding, not a failure
+            } else if (status >= 500) {
+                serverErrors++;
+            }
+        }
+
+        void merge(EndpointStats other) {
+            latencies.addAll(other.latencies);
+            errors += other.errors;
+            serverErrors += other.serverErrors;
+            shed += other.shed;
+        }
+
+        double throughput() {
+            return latencies.size() / (double) seconds;
+        }
+
+        double percentileMillis(int percentile) {
+            if (latencies.isEmpty()) {
+                return 0;
+            }
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+            return sorted.get(Math.max(index, 0)) / 1_000_000.0;
+        }
+    }
+}
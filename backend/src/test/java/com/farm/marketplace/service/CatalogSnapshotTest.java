@@ -0,0 +1,101 @@
+package com.farm.marketplace.service;
+
+import com.farm.marketplace.dto.ProductResponse;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogSnapshotTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private final CatalogSnapshot snapshot = new CatalogSnapshot();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(snapshot, "objectMapper", objectMapper);
+    }
+
+    @Test
+    void gzippedBodyOfSeveralChunksInflatesToTheJsonBody() throws IOException {
+        List<ProductResponse> products = new ArrayList<>();
+        for (long id = 1; id <= 3L * CatalogSnapshot.CHUNK_SPAN; id += 7) {
+            products.add(product(id, "Product " + id, 10));
+        }
+        snapshot.replaceAll(products);
+
+        CatalogSnapshot.Snapshot current = snapshot.current();
+        assertThat(inflate(current.gzipped())).isEqualTo(current.json());
+        assertThat(ids(current.json())).containsExactlyElementsOf(products.stream().map(ProductResponse::getId).toList());
+    }
+
+    @Test
+    void emptyCatalogIsAnEmptyArray() throws IOException {
+        snapshot.replaceAll(List.of());
+
+        CatalogSnapshot.Snapshot current = snapshot.current();
+        assertThat(new String(current.json())).isEqualTo("[]");
+        assertThat(inflate(current.gzipped())).isEqualTo(current.json());
+    }
+
+    @Test
+    void applyReencodesChangedProductsAndDropsDeletedOnes() throws IOException {
+        snapshot.replaceAll(List.of(product(1L, "Apples", 5), product(2L, "Pears", 5),
+                product(CatalogSnapshot.CHUNK_SPAN + 1L, "Plums", 5)));
+        String firstETag = snapshot.current().eTag();
+
+        snapshot.apply(Set.of(2L, CatalogSnapshot.CHUNK_SPAN + 1L), List.of(product(2L, "Pears", 4)));
+
+        CatalogSnapshot.Snapshot current = snapshot.current();
+        assertThat(current.eTag()).isNotEqualTo(firstETag);
+        assertThat(inflate(current.gzipped())).isEqualTo(current.json());
+        List<ProductResponse> products = read(current.json());
+        assertThat(products).extracting(ProductResponse::getId).containsExactly(1L, 2L);
+        assertThat(products.get(1).getQuantity()).isEqualTo(4);
+    }
+
+    @Test
+    void unchangedContentKeepsTheSnapshot() {
+        snapshot.replaceAll(List.of(product(1L, "Apples", 5)));
+        CatalogSnapshot.Snapshot first = snapshot.current();
+
+        snapshot.apply(Set.of(1L), List.of(product(1L, "Apples", 5)));
+
+        assertThat(snapshot.current()).isSameAs(first);
+    }
+
+    private List<Long> ids(byte[] json) throws IOException {
+        return read(json).stream().map(ProductResponse::getId).toList();
+    }
+
+    private List<ProductResponse> read(byte[] json) throws IOException {
+        return objectMapper.readValue(json, new TypeReference<>() {
+        });
+    }
+
+    private static byte[] inflate(byte[] gzipped) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static ProductResponse product(Long id, String name, int quantity) {
+        ProductResponse product = new ProductResponse();
+        product.setId(id);
+        product.setName(name);
+        product.setQuantity(quantity);
+        return product;
+    }
+}
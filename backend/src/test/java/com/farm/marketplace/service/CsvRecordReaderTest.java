@@ -0,0 +1,75 @@
+package com.farm.marketplace.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvRecordReaderTest {
+
+    @Test
+    void splitsPlainAndQuotedFields() throws IOException {
+        List<List<String>> records = readAll("name,price\nCarrots,1.5\n\"Beans, green\",\"2\"\n");
+
+        assertThat(records).containsExactly(
+                List.of("name", "price"),
+                List.of("Carrots", "1.5"),
+                List.of("Beans, green", "2"));
+    }
+
+    @Test
+    void keepsDoubledQuotesAndEmptyFields() throws IOException {
+        List<List<String>> records = readAll("\"The \"\"best\"\" kale\",,\"\"\n");
+
+        assertThat(records).containsExactly(List.of("The \"best\" kale", "", ""));
+    }
+
+    @Test
+    void quotedFieldsSpanLinesAndRecordsStartOnTheirOwnLine() throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader(
+                "name,description\r\nApples,\"Crisp\r\nand sweet\"\r\nPears,Ripe\r\n"));
+
+        assertThat(reader.next()).containsExactly("name", "description");
+        assertThat(reader.getRecordLine()).isEqualTo(1);
+        assertThat(reader.next()).containsExactly("Apples", "Crisp\r\nand sweet");
+        assertThat(reader.getRecordLine()).isEqualTo(2);
+        assertThat(reader.next()).containsExactly("Pears", "Ripe");
+        assertThat(reader.getRecordLine()).isEqualTo(4);
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void lastRecordNeedsNoLineBreak() throws IOException {
+        assertThat(readAll("a,b\nc,d")).containsExactly(List.of("a", "b"), List.of("c", "d"));
+    }
+
+    @Test
+    void blankLineIsOneEmptyField() throws IOException {
+        assertThat(readAll("a\n\nb\n")).containsExactly(List.of("a"), List.of(""), List.of("b"));
+    }
+
+    @Test
+    void unterminatedQuoteIsRejected() {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader("a,\"never closed\nb,c\n"));
+
+        assertThatThrownBy(reader::next)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unterminated");
+        assertThat(reader.getRecordLine()).isEqualTo(1);
+    }
+
+    private static List<List<String>> readAll(String csv) throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader(csv));
+        List<List<String>> records = new ArrayList<>();
+        List<String> fields;
+        while ((fields = reader.next()) != null) {
+            records.add(fields);
+        }
+        return records;
+    }
+}
@@ -0,0 +1,156 @@
+package com.farm.marketplace.service;
+
+import com.farm.marketplace.model.Order;
+import com.farm.marketplace.model.OrderStatus;
+import com.farm.marketplace.model.OutboxEvent;
+import com.farm.marketplace.model.OutboxEventStatus;
+import com.farm.marketplace.model.OutboxEventType;
+import com.farm.marketplace.repository.OrderRepository;
+import com.farm.marketplace.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxServiceTest {
+
+    private static final long ORDER_ID = 7L;
+
+    private final OutboxEventRepository outboxEventRepository = mock(OutboxEventRepository.class);
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final DeliveryService deliveryService = mock(DeliveryService.class);
+    private final MarketplaceMetrics metrics = mock(MarketplaceMetrics.class);
+
+    private final OutboxService outboxService = new OutboxService();
+
+    @BeforeEach
+    void setUp() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+
+        ReflectionTestUtils.setField(outboxService, "outboxEventRepository", outboxEventRepository);
+        ReflectionTestUtils.setField(outboxService, "orderRepository", orderRepository);
+        ReflectionTestUtils.setField(outboxService, "deliveryService", deliveryService);
+        ReflectionTestUtils.setField(outboxService, "metrics", metrics);
+        ReflectionTestUtils.setField(outboxService, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(outboxService, "batchSize", 100);
+        ReflectionTestUtils.setField(outboxService, "maxAttempts", 5);
+        ReflectionTestUtils.setField(outboxService, "initialBackoffMs", 1000L);
+        ReflectionTestUtils.setField(outboxService, "maxBackoffMs", 5000L);
+        outboxService.init();
+
+        Order order = new Order();
+        order.setId(ORDER_ID);
+        order.setStatus(OrderStatus.SHIPPED);
+        when(orderRepository.findById(ORDER_ID)).thenReturn(Optional.of(order));
+    }
+
+    @Test
+    void handledEventIsMarkedProcessed() {
+        OutboxEvent event = due(0);
+
+        outboxService.processDueEvents();
+
+        verify(deliveryService).autoCreateDeliveryForShippedOrder(ORDER_ID);
+        assertThat(event.getStatus()).isEqualTo(OutboxEventStatus.PROCESSED);
+        assertThat(event.getAttempts()).isEqualTo(1);
+        assertThat(event.getProcessedAt()).isNotNull();
+        verify(metrics).recordOutboxEvent("ORDER_SHIPPED", "processed");
+    }
+
+    @Test
+    void failedEventIsRetriedWithExponentialBackoff() {
+        when(deliveryService.autoCreateDeliveryForShippedOrder(ORDER_ID)).thenThrow(new RuntimeException("boom"));
+
+        OutboxEvent first = due(0);
+        outboxService.processDueEvents();
+        assertRetriedAfter(first, Duration.ofMillis(1000));
+        assertThat(first.getAttempts()).isEqualTo(1);
+        assertThat(first.getLastError()).isEqualTo("RuntimeException: boom");
+
+        OutboxEvent third = due(2);
+        outboxService.processDueEvents();
+        assertRetriedAfter(third, Duration.ofMillis(4000));
+
+        // 1000 << 3 = 8000 ms, capped at the 5000 ms maximum
+        OutboxEvent fourth = due(3);
+        outboxService.processDueEvents();
+        assertRetriedAfter(fourth, Duration.ofMillis(5000));
+    }
+
+    @Test
+    void eventFailingItsLastAttemptIsMarkedFailed() {
+        when(deliveryService.autoCreateDeliveryForShippedOrder(ORDER_ID)).thenThrow(new RuntimeException("boom"));
+        OutboxEvent event = due(4);
+
+        outboxService.processDueEvents();
+
+        assertThat(event.getStatus()).isEqualTo(OutboxEventStatus.FAILED);
+        assertThat(event.getAttempts()).isEqualTo(5);
+        assertThat(event.getLastError()).isEqualTo("RuntimeException: boom");
+        verify(metrics).recordOutboxEvent("ORDER_SHIPPED", "failed");
+        verify(metrics, never()).recordOutboxEvent("ORDER_SHIPPED", "retried");
+    }
+
+    @Test
+    void orderNoLongerShippedIsSkipped() {
+        Order cancelled = new Order();
+        cancelled.setId(ORDER_ID);
+        cancelled.setStatus(OrderStatus.CANCELLED);
+        when(orderRepository.findById(ORDER_ID)).thenReturn(Optional.of(cancelled));
+        OutboxEvent event = due(0);
+
+        outboxService.processDueEvents();
+
+        verify(deliveryService, never()).autoCreateDeliveryForShippedOrder(any());
+        assertThat(event.getStatus()).isEqualTo(OutboxEventStatus.PROCESSED);
+    }
+
+    @Test
+    void longErrorsAreTruncated() {
+        when(deliveryService.autoCreateDeliveryForShippedOrder(ORDER_ID))
+                .thenThrow(new RuntimeException("x".repeat(5000)));
+        OutboxEvent event = due(0);
+
+        outboxService.processDueEvents();
+
+        assertThat(event.getLastError()).hasSize(1000);
+    }
+
+    /**
+     * A pending event that has already been tried the given number of times, returned by the next claim
+     */
+    private OutboxEvent due(int attempts) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(1L);
+        event.setEventType(OutboxEventType.ORDER_SHIPPED);
+        event.setAggregateId(ORDER_ID);
+        event.setStatus(OutboxEventStatus.PENDING);
+        event.setAttempts(attempts);
+        event.setNextAttemptAt(LocalDateTime.now());
+        when(outboxEventRepository.findDueForUpdate(eq(OutboxEventStatus.PENDING), any(), any()))
+                .thenReturn(List.of(event));
+        return event;
+    }
+
+    private static void assertRetriedAfter(OutboxEvent event, Duration backoff) {
+        assertThat(event.getStatus()).isEqualTo(OutboxEventStatus.PENDING);
+        assertThat(Duration.between(LocalDateTime.now(), event.getNextAttemptAt()).toMillis())
+                .isCloseTo(backoff.toMillis(), within(500L));
+    }
+}
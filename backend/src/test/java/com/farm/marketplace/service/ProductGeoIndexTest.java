@@ -0,0 +1,132 @@
+package com.farm.marketplace.service;
+
+import com.farm.marketplace.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ProductGeoIndexTest {
+
+    private final ProductGeoIndex index = new ProductGeoIndex();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(index, "cellSize", 0.1);
+        index.init();
+    }
+
+    @Test
+    void haversineDistanceMatchesKnownValues() {
+        // London to Paris, roughly 344 km
+        assertThat(ProductGeoIndex.distanceKm(51.5074, -0.1278, 48.8566, 2.3522)).isCloseTo(343.5, within(1.0));
+        // A quarter of the way round the equator
+        assertThat(ProductGeoIndex.distanceKm(0, 0, 0, 90))
+                .isCloseTo(Math.PI / 2 * ProductGeoIndex.EARTH_RADIUS_KM, within(0.001));
+    }
+
+    @Test
+    void withinRadiusReturnsNearestFirstAndSkipsFartherProducts() {
+        index.indexAll(List.of(
+                product(1L, 51.50, -0.12),     // London
+                product(2L, 51.75, -1.25),     // Oxford, ~80 km
+                product(3L, 52.20, 0.12),      // Cambridge, ~80 km
+                product(4L, 53.48, -2.24)));   // Manchester, ~260 km
+
+        List<ProductGeoIndex.Match> matches = index.withinRadius(51.50, -0.12, 100, 10);
+
+        assertThat(matches).extracting(ProductGeoIndex.Match::productId).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(matches.get(0).productId()).isEqualTo(1L);
+        assertThat(matches).isSortedAccordingTo(Comparator.comparingDouble(ProductGeoIndex.Match::distanceKm));
+        assertThat(index.withinRadius(51.50, -0.12, 100, 2)).hasSize(2);
+    }
+
+    @Test
+    void searchesAcrossTheAntimeridian() {
+        index.indexAll(List.of(
+                product(1L, 0.0, 179.95),
+                product(2L, 0.0, -179.95),
+                product(3L, 0.0, 170.0)));
+
+        List<ProductGeoIndex.Match> matches = index.withinRadius(0.0, 179.99, 20, 10);
+
+        assertThat(matches).extracting(ProductGeoIndex.Match::productId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void searchesOverAPole() {
+        index.indexAll(List.of(
+                product(1L, 89.95, 0.0),
+                product(2L, 89.95, 180.0),
+                product(3L, 80.0, 0.0)));
+
+        List<ProductGeoIndex.Match> matches = index.withinRadius(89.99, 90.0, 20, 10);
+
+        assertThat(matches).extracting(ProductGeoIndex.Match::productId).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void nearestMatchesABruteForceScan() {
+        Random random = new Random(42);
+        List<Product> products = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            products.add(product(id, 50 + random.nextDouble() * 5, -5 + random.nextDouble() * 7));
+        }
+        index.indexAll(products);
+
+        double latitude = 52.5;
+        double longitude = -1.5;
+        List<Long> expected = products.stream()
+                .sorted(Comparator.comparingDouble((Product p) ->
+                                ProductGeoIndex.distanceKm(latitude, longitude, p.getLatitude(), p.getLongitude()))
+                        .thenComparing(Product::getId))
+                .limit(25)
+                .map(Product::getId)
+                .toList();
+
+        assertThat(index.nearest(latitude, longitude, 25))
+                .extracting(ProductGeoIndex.Match::productId)
+                .containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void nearestReturnsEverythingWhenFewerThanKProducts() {
+        index.indexAll(List.of(product(1L, 10.0, 10.0), product(2L, -40.0, 150.0)));
+
+        assertThat(index.nearest(60.0, -100.0, 5))
+                .extracting(ProductGeoIndex.Match::productId)
+                .containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void movingDroppingAndDeletingUpdateTheGrid() {
+        index.index(product(1L, 51.50, -0.12));
+        index.index(product(1L, 40.71, -74.00));
+
+        assertThat(index.withinRadius(51.50, -0.12, 50, 10)).isEmpty();
+        assertThat(index.withinRadius(40.71, -74.00, 50, 10)).extracting(ProductGeoIndex.Match::productId)
+                .containsExactly(1L);
+
+        index.index(product(1L, null, null));
+        assertThat(index.withinRadius(40.71, -74.00, 50, 10)).isEmpty();
+
+        index.index(product(2L, 40.71, -74.00));
+        index.delete(2L);
+        assertThat(index.withinRadius(40.71, -74.00, 50, 10)).isEmpty();
+    }
+
+    private static Product product(Long id, Double latitude, Double longitude) {
+        Product product = new Product();
+        product.setId(id);
+        product.setLatitude(latitude);
+        product.setLongitude(longitude);
+        return product;
+    }
+}
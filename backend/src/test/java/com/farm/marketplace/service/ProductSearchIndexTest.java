@@ -0,0 +1,98 @@
+package com.farm.marketplace.service;
+
+import com.farm.marketplace.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductSearchIndexTest {
+
+    private final ProductSearchIndex index = new ProductSearchIndex();
+
+    @Test
+    void nameMatchesRankAboveDescriptionMatches() {
+        index.indexAll(List.of(
+                product(1L, "Fresh eggs", "Goes well with tomatoes", "Leeds"),
+                product(2L, "Tomatoes", "Ripe and red", "Leeds")));
+
+        assertThat(index.search("tomatoes", 0, 10).productIds()).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void rarerTermsWeighMore() {
+        index.indexAll(List.of(
+                product(1L, "Organic carrots", null, "York"),
+                product(2L, "Organic potatoes", null, "York"),
+                product(3L, "Organic kale", null, "York"),
+                product(4L, "Organic carrots", null, "York")));
+
+        // "kale" occurs once, "organic" everywhere: the kale product wins the two-word query
+        assertThat(index.search("organic kale", 0, 10).productIds().get(0)).isEqualTo(3L);
+    }
+
+    @Test
+    void shorterDocumentsWinOnEqualTermFrequency() {
+        index.indexAll(List.of(
+                product(1L, "Honey", "Raw wildflower honey from our hives on the moor", "Whitby"),
+                product(2L, "Honey", null, "Whitby")));
+
+        assertThat(index.search("honey", 0, 10).productIds()).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void prefixesMatchButExactTermsRankFirst() {
+        index.indexAll(List.of(
+                product(1L, "Carrots", null, "Hull"),
+                product(2L, "Carrot", null, "Hull")));
+
+        assertThat(index.search("carr", 0, 10).productIds()).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(index.search("carrot", 0, 10).productIds()).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void pagesThroughRankedResultsAndCountsAllMatches() {
+        index.indexAll(List.of(
+                product(1L, "Apples", "Bramley cooking apples picked this week", "Kent"),
+                product(2L, "Apples", null, "Kent"),
+                product(3L, "Apples", "Cox", "Kent"),
+                product(4L, "Pears", null, "Kent")));
+
+        ProductSearchIndex.SearchResult firstPage = index.search("apples", 0, 2);
+        ProductSearchIndex.SearchResult secondPage = index.search("apples", 2, 2);
+
+        assertThat(firstPage.total()).isEqualTo(3);
+        assertThat(firstPage.productIds()).containsExactly(2L, 3L);
+        assertThat(secondPage.productIds()).containsExactly(1L);
+    }
+
+    @Test
+    void reindexingAndDeletingUpdateResults() {
+        index.index(product(1L, "Plums", null, "Evesham"));
+        index.index(product(1L, "Damsons", null, "Evesham"));
+
+        assertThat(index.search("plums", 0, 10).total()).isZero();
+        assertThat(index.search("damsons", 0, 10).productIds()).containsExactly(1L);
+
+        index.delete(1L);
+
+        assertThat(index.search("damsons", 0, 10).total()).isZero();
+    }
+
+    @Test
+    void tokenizesOnNonAlphanumericsAndLowerCases() {
+        assertThat(ProductSearchIndex.tokenize("Free-range EGGS, 12x")).containsExactly("free", "range", "eggs", "12x");
+        assertThat(ProductSearchIndex.tokenize("  ")).isEmpty();
+        assertThat(index.search("!!", 0, 10).total()).isZero();
+    }
+
+    private static Product product(Long id, String name, String description, String location) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setDescription(description);
+        product.setLocation(location);
+        return product;
+    }
+}
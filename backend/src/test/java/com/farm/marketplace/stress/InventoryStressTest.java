@@ -0,0 +1,342 @@
+package com.farm.marketplace.stress;
+
+import com.farm.marketplace.dto.InventoryUpdateRequest;
+import com.farm.marketplace.dto.OrderRequest;
+import com.farm.marketplace.model.Product;
+import com.farm.marketplace.model.Role;
+import com.farm.marketplace.model.User;
+import com.farm.marketplace.repository.ProductRepository;
+import com.farm.marketplace.repository.UserRepository;
+import com.farm.marketplace.security.AuthenticatedUser;
+import com.farm.marketplace.service.FlashSaleService;
+import com.farm.marketplace.service.InventoryDecrementMode;
+import com.farm.marketplace.service.InventoryService;
+import com.farm.marketplace.service.OrderService;
+import com.farm.marketplace.service.ShardedInventoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Contention suite for the inventory engine: many threads interleave order placement,
+ * cancellation, manual stock updates and syncs against a single product, once per ordering
+ * path (row lock, atomic decrement, flash-sale batch writer, sharded counters). Checks that
+ * stock never goes negative, that stock and Product.quantity end up equal, and that no
+ * operation deadlocks or fails on a lock; logs throughput so locking changes can be compared.
+ *
+ * Run with ./mvnw -Pstress-test test. Tune with -Dstress.threads and -Dstress.operations-per-thread.
+ */
+@Tag("stress")
+@ActiveProfiles("embedded")
+@SpringBootTest
+class InventoryStressTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryStressTest.class);
+
+    private static final int THREADS = Integer.getInteger("stress.threads", 16);
+    private static final int OPERATIONS_PER_THREAD = Integer.getInteger("stress.operations-per-thread", 250);
+    private static final int INITIAL_STOCK = 200;
+    private static final long TIMEOUT_SECONDS = 120;
+
+    private static final int SHARDS = 4;
+
+    private static final AtomicInteger RUN = new AtomicInteger();
+
+    /**
+     * The stock path orders take in a run
+     */
+    enum Scenario {
+        LOCKING(InventoryDecrementMode.LOCKING),
+        ATOMIC(InventoryDecrementMode.ATOMIC),
+        FLASH_SALE(InventoryDecrementMode.LOCKING),
+        SHARDED(InventoryDecrementMode.LOCKING);
+
+        private final InventoryDecrementMode decrementMode;
+
+        Scenario(InventoryDecrementMode decrementMode) {
+            this.decrementMode = decrementMode;
+        }
+    }
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private FlashSaleService flashSaleService;
+
+    @Autowired
+    private ShardedInventoryService shardedInventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private InventoryDecrementMode originalMode;
+    private Boolean originalShardingEnabled;
+    private Long hotProductId;
+
+    @AfterEach
+    void restoreSettings() {
+        // Object locals keep the generic T from being inferred as Class and cast
+        if (originalMode != null) {
+            Object target = AopTestUtils.getTargetObject(inventoryService);
+            ReflectionTestUtils.setField(target, "decrementMode", originalMode);
+        }
+        if (originalShardingEnabled != null) {
+            Object target = AopTestUtils.getTargetObject(shardedInventoryService);
+            ReflectionTestUtils.setField(target, "enabled", originalShardingEnabled);
+        }
+        if (hotProductId != null) {
+            flashSaleService.setHot(hotProductId, false);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(Scenario.class)
+    void interleavedStockOperationsStayConsistent(Scenario scenario) throws Exception {
+        Object inventoryTarget = AopTestUtils.getTargetObject(inventoryService);
+        originalMode = (InventoryDecrementMode) ReflectionTestUtils.getField(inventoryTarget, "decrementMode");
+        ReflectionTestUtils.setField(inventoryTarget, "decrementMode", scenario.decrementMode);
+
+        int run = RUN.incrementAndGet();
+        AuthenticatedUser farmer = AuthenticatedUser.from(saveUser("stress-farmer-" + run, Role.FARMER));
+        Long productId = seedProduct(farmer.getId());
+        if (scenario == Scenario.FLASH_SALE) {
+            hotProductId = productId;
+            flashSaleService.setHot(productId, true);
+        } else if (scenario == Scenario.SHARDED) {
+            Object shardingTarget = AopTestUtils.getTargetObject(shardedInventoryService);
+            originalShardingEnabled = (Boolean) ReflectionTestUtils.getField(shardingTarget, "enabled");
+            ReflectionTestUtils.setField(shardingTarget, "enabled", true);
+            shardedInventoryService.shard(productId, SHARDS);
+        }
+        List<AuthenticatedUser> buyers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            buyers.add(AuthenticatedUser.from(saveUser("stress-buyer-" + run + "-" + i, Role.BUYER)));
+        }
+
+        Stats stats = new Stats();
+        StockMonitor monitor = new StockMonitor(productId);
+        Thread monitorThread = new Thread(monitor, "stock-monitor");
+        monitorThread.start();
+
+        ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            AuthenticatedUser buyer = buyers.get(i);
+            futures.add(workers.submit(() -> {
+                start.await();
+                runOperations(productId, buyer, farmer, stats);
+                return null;
+            }));
+        }
+
+        long began = System.nanoTime();
+        start.countDown();
+        workers.shutdown();
+        boolean finished = workers.awaitTermination(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        double elapsedSeconds = (System.nanoTime() - began) / 1_000_000_000.0;
+
+        if (!finished) {
+            workers.shutdownNow();
+        }
+        monitor.stop();
+        monitorThread.join();
+
+        assertThat(finished)
+                .as("workers finished within %ds (possible deadlock)%s", TIMEOUT_SECONDS, threadDump())
+                .isTrue();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        report(scenario, stats, elapsedSeconds);
+
+        assertThat(ManagementFactory.getThreadMXBean().findDeadlockedThreads()).as("deadlocked threads").isNull();
+        assertThat(stats.lockFailures.sum()).as("deadlock or lock timeout failures").isZero();
+        assertThat(stats.unexpected).as("unexpected failures").isEmpty();
+        assertThat(monitor.minInventory).as("lowest stock seen").isGreaterThanOrEqualTo(0);
+        assertThat(monitor.minProduct).as("lowest product quantity seen").isGreaterThanOrEqualTo(0);
+        assertThat(stockQuantity(productId)).as("stock matches product quantity")
+                .isEqualTo(productQuantity(productId));
+    }
+
+    /**
+     * One worker's share of the interleaving: mostly orders, plus cancels of its own
+     * pending orders, manual restocks and syncs
+     */
+    private void runOperations(Long productId, AuthenticatedUser buyer, AuthenticatedUser farmer, Stats stats) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Deque<Long> pendingOrders = new ArrayDeque<>();
+
+        for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+            int roll = random.nextInt(100);
+            try {
+                if (roll < 55) {
+                    authenticate(buyer);
+                    OrderRequest request = new OrderRequest(productId, 1 + random.nextInt(3));
+                    pendingOrders.push(orderService.createOrder(request).getId());
+                    stats.orders.increment();
+                } else if (roll < 80 && !pendingOrders.isEmpty()) {
+                    authenticate(buyer);
+                    orderService.cancelOrder(pendingOrders.pop());
+                    stats.cancels.increment();
+                } else if (roll < 90) {
+                    authenticate(farmer);
+                    InventoryUpdateRequest request = new InventoryUpdateRequest(random.nextInt(100), "stress restock");
+                    inventoryService.updateInventory(productId, request, farmer.getId());
+                    stats.updates.increment();
+                } else {
+                    authenticate(farmer);
+                    inventoryService.syncInventoryWithProduct(productId);
+                    stats.syncs.increment();
+                }
+            } catch (ConcurrencyFailureException e) {
+                stats.lockFailures.increment();
+            } catch (RuntimeException e) {
+                if (e.getMessage() != null
+                        && (e.getMessage().startsWith("Insufficient stock") || e.getMessage().startsWith("Sold out"))) {
+                    stats.rejections.increment();
+                } else {
+                    stats.unexpected.add(e.toString());
+                }
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        }
+    }
+
+    private static void authenticate(AuthenticatedUser user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    private static void report(Scenario scenario, Stats stats, double elapsedSeconds) {
+        long total = stats.orders.sum() + stats.cancels.sum() + stats.updates.sum() + stats.syncs.sum()
+                + stats.rejections.sum();
+        logger.info("Inventory stress [{}] threads={} elapsed={}s throughput={} ops/s",
+                scenario, THREADS, String.format("%.2f", elapsedSeconds), String.format("%.1f", total / elapsedSeconds));
+        logger.info("Inventory stress [{}] orders={} rejected={} cancels={} updates={} syncs={} lockFailures={} unexpected={}",
+                scenario, stats.orders.sum(), stats.rejections.sum(), stats.cancels.sum(), stats.updates.sum(),
+                stats.syncs.sum(), stats.lockFailures.sum(), stats.unexpected.size());
+    }
+
+    private static String threadDump() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        StringBuilder dump = new StringBuilder(System.lineSeparator());
+        for (ThreadInfo info : threads.dumpAllThreads(true, true)) {
+            dump.append(info);
+        }
+        return dump.toString();
+    }
+
+    private Long seedProduct(Long farmerId) {
+        Product product = new Product();
+        product.setName("Stress tomatoes");
+        product.setDescription("Single contended product");
+        product.setPrice(3.0);
+        product.setQuantity(INITIAL_STOCK);
+        product.setLocation("Test farm");
+        product.setFarmerId(farmerId);
+        Long productId = productRepository.save(product).getId();
+        inventoryService.initializeInventory(productId, INITIAL_STOCK);
+        return productId;
+    }
+
+    private User saveUser(String name, Role role) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@stress.test");
+        user.setPassword("not-used");
+        user.setRole(role);
+        return userRepository.save(user);
+    }
+
+    /**
+     * Committed available stock: the shard total for a sharded product, else the inventory row
+     */
+    private int stockQuantity(Long productId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE((SELECT SUM(available_quantity) FROM inventory_shards WHERE product_id = ?), " +
+                "(SELECT available_quantity FROM inventory WHERE product_id = ?))",
+                Integer.class, productId, productId);
+    }
+
+    private int productQuantity(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM products WHERE id = ?", Integer.class, productId);
+    }
+
+    private static final class Stats {
+        private final LongAdder orders = new LongAdder();
+        private final LongAdder rejections = new LongAdder();
+        private final LongAdder cancels = new LongAdder();
+        private final LongAdder updates = new LongAdder();
+        private final LongAdder syncs = new LongAdder();
+        private final LongAdder lockFailures = new LongAdder();
+        private final Queue<String> unexpected = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Polls committed stock while the workers run and remembers the lowest values seen
+     */
+    private final class StockMonitor implements Runnable {
+
+        private final Long productId;
+        private final AtomicBoolean running = new AtomicBoolean(true);
+        private volatile int minInventory = Integer.MAX_VALUE;
+        private volatile int minProduct = Integer.MAX_VALUE;
+
+        private StockMonitor(Long productId) {
+            this.productId = productId;
+        }
+
+        @Override
+        public void run() {
+            while (running.get()) {
+                minInventory = Math.min(minInventory, stockQuantity(productId));
+                minProduct = Math.min(minProduct, productQuantity(productId));
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        void stop() {
+            running.set(false);
+        }
+    }
+}